@@ -0,0 +1,69 @@
+package com.fujitsu.trialtask.deliveryfee.benchmark;
+
+import com.fujitsu.trialtask.deliveryfee.engine.WeatherConditionEngine;
+import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
+import com.fujitsu.trialtask.deliveryfee.entity.SevereWeatherCondition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Severe weather classification of a measurement with the seeded rules, over phenomena that match none,
+ * one or several conditions. This is the engine behind {@code SevereWeatherConditionService.classify},
+ * without the database the service compiles it from.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ClassificationBenchmark {
+    private static final String[] PHENOMENA = {
+            "Clear", "Few clouds", "Variable clouds", "Cloudy with clear spells", "Overcast",
+            "Light snow shower", "Moderate snow shower", "Heavy snowfall", "Light sleet", "Blowing snow",
+            "Light rain", "Moderate shower", "Heavy rain", "Light drizzle", "Glaze", "Hail",
+            "Thunder", "Thunderstorm", "Mist", "Fog", "", "LIGHT SNOW SHOWER"
+    };
+    private static final float[] AIR_TEMPERATURES = {-14.2F, -3.5F, 0.4F, 6.8F};
+    private static final float[] WIND_SPEEDS = {2.1F, 12.6F, 23.0F};
+
+    private WeatherConditionEngine engine;
+    private int next;
+
+    @Setup
+    public void compileRules() {
+        CodeItem underMinusTen = new CodeItem("AT_UNDER_MINUS_TEN", "AT");
+        CodeItem minusTenToZero = new CodeItem("AT_MINUS_TEN_TO_ZERO", "AT");
+        CodeItem tenToTwenty = new CodeItem("WS_TEN_TO_TWENTY", "WS");
+        CodeItem aboveTwenty = new CodeItem("WS_ABOVE_TWENTY", "WS");
+        CodeItem snowSleet = new CodeItem("WP_SNOW_SLEET", "WP");
+        CodeItem rain = new CodeItem("WP_RAIN", "WP");
+        CodeItem glazeHailThunder = new CodeItem("WP_GLAZE_HAIL_THUNDER", "WP");
+        engine = WeatherConditionEngine.compile(List.of(
+                new SevereWeatherCondition(1L, underMinusTen, null, -10F, null),
+                new SevereWeatherCondition(2L, minusTenToZero, -10F, 0F, null),
+                new SevereWeatherCondition(3L, tenToTwenty, 10F, 20F, null),
+                new SevereWeatherCondition(4L, aboveTwenty, 20F, null, null),
+                new SevereWeatherCondition(5L, snowSleet, null, null, List.of("snow", "sleet")),
+                new SevereWeatherCondition(6L, rain, null, null, List.of("rain")),
+                new SevereWeatherCondition(7L, glazeHailThunder, null, null, List.of("glaze", "hail", "thunder"))
+        ));
+    }
+
+    @Benchmark
+    public List<CodeItem> classify() {
+        int i = next++ & Integer.MAX_VALUE;
+        return engine.classify(AIR_TEMPERATURES[i % AIR_TEMPERATURES.length], WIND_SPEEDS[i % WIND_SPEEDS.length],
+                PHENOMENA[i % PHENOMENA.length]);
+    }
+
+    @Benchmark
+    public List<CodeItem> classifyPhenomenonOnly() {
+        return engine.classify(null, null, PHENOMENA[(next++ & Integer.MAX_VALUE) % PHENOMENA.length]);
+    }
+}
@@ -0,0 +1,75 @@
+package com.fujitsu.trialtask.deliveryfee.benchmark;
+
+import com.fujitsu.trialtask.deliveryfee.DeliveryFeeApplication;
+import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeOutcome;
+import com.fujitsu.trialtask.deliveryfee.service.DeliveryFeeService;
+import com.fujitsu.trialtask.deliveryfee.service.WeatherService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivery fee of a city and vehicle end to end, from the service down to the seeded in-memory H2 database.
+ * Weather is ingested once from the recorded observations, the benchmark cycles through all seeded pairs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DeliveryFeeBenchmark {
+    private static final long[][] PAIRS = {
+            {1, 1}, {1, 2}, {1, 3},
+            {2, 1}, {2, 2}, {2, 3},
+            {3, 1}, {3, 2}, {3, 3}
+    };
+
+    /** Whether fees are served from the precomputed snapshot or calculated from the database on every request. **/
+    @Param({"true", "false"})
+    private boolean snapshotEnabled;
+
+    private ConfigurableApplicationContext context;
+    private DeliveryFeeService deliveryFeeService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(DeliveryFeeApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+                        "spring.h2.console.enabled=false",
+                        "weather.service.cron-expression=-",
+                        "weather.retention.cron-expression=-",
+                        "weather.provider.ilmateenistus.enabled=false",
+                        "weather.provider.file.enabled=true",
+                        "weather.provider.file.location=classpath:observations.xml",
+                        "delivery.fee.snapshot.enabled=" + snapshotEnabled,
+                        "logging.level.root=WARN")
+                .run();
+        context.getBean(WeatherService.class).updateWeather();
+        deliveryFeeService = context.getBean(DeliveryFeeService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public DeliveryFeeOutcome getDeliveryFee() {
+        long[] pair = PAIRS[next];
+        next = next == PAIRS.length - 1 ? 0 : next + 1;
+        return deliveryFeeService.getDeliveryFeeOutcome(pair[0], pair[1]);
+    }
+}
@@ -0,0 +1,67 @@
+package com.fujitsu.trialtask.deliveryfee.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fujitsu.trialtask.deliveryfee.model.WeatherObservationModel;
+import com.fujitsu.trialtask.deliveryfee.model.WeatherStationModel;
+import com.fujitsu.trialtask.deliveryfee.util.WeatherObservationParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the recorded observations payload into the stations of the seeded weather stations,
+ * binding the whole document with Jackson compared to the streaming parser used by the weather ingest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ObservationParsingBenchmark {
+    private static final Set<Integer> REGISTERED_STATIONS = Set.of(26038, 26242, 41803);
+
+    private byte[] payload;
+    private XmlMapper xmlMapper;
+
+    @Setup
+    public void loadPayload() throws IOException {
+        try (InputStream input = getClass().getResourceAsStream("/observations.xml")) {
+            payload = input.readAllBytes();
+        }
+        // Configured like the XML message converter the weather request used to bind the response with.
+        xmlMapper = XmlMapper.builder()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+    }
+
+    @Benchmark
+    public void jacksonBinding(Blackhole blackhole) throws IOException {
+        WeatherObservationModel observation = xmlMapper.readValue(payload, WeatherObservationModel.class);
+        blackhole.consume(observation.getTimeInSeconds());
+        for (WeatherStationModel station : observation.getStations()) {
+            if (station.getWMOcode() != null && REGISTERED_STATIONS.contains(station.getWMOcode())) {
+                blackhole.consume(station);
+            }
+        }
+    }
+
+    @Benchmark
+    public int streamingParser(Blackhole blackhole) throws XMLStreamException {
+        return WeatherObservationParser.parse(new ByteArrayInputStream(payload), REGISTERED_STATIONS::contains,
+                (timeInSeconds, station) -> {
+                    blackhole.consume(timeInSeconds);
+                    blackhole.consume(station);
+                });
+    }
+}
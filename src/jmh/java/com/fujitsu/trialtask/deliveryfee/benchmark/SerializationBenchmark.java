@@ -0,0 +1,70 @@
+package com.fujitsu.trialtask.deliveryfee.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeDto;
+import com.fujitsu.trialtask.deliveryfee.dto.WeatherMeasurementDto;
+import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
+import com.fujitsu.trialtask.deliveryfee.entity.WeatherMeasurement;
+import com.fujitsu.trialtask.deliveryfee.entity.WeatherStation;
+import com.fujitsu.trialtask.deliveryfee.mapper.WeatherMeasurementMapper;
+import com.fujitsu.trialtask.deliveryfee.mapper.WeatherMeasurementMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of a stored measurement to its DTO and JSON serialization of the delivery fee response body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SerializationBenchmark {
+    private WeatherMeasurementMapper weatherMapper;
+    private ObjectMapper objectMapper;
+    private WeatherMeasurement measurement;
+    private DeliveryFeeDto deliveryFee;
+
+    @Setup
+    public void createObjects() {
+        weatherMapper = new WeatherMeasurementMapperImpl();
+        objectMapper = new ObjectMapper();
+
+        measurement = WeatherMeasurement.builder()
+                .id(1L)
+                .timestamp(new Timestamp(1710050400000L))
+                .weatherStation(new WeatherStation(26038, "Tallinn-Harku"))
+                .airTemperature(-2.1F)
+                .windSpeed(4.7F)
+                .phenomenon("Light snow shower")
+                .classified(true)
+                .codeItems(List.of(new CodeItem("WP_SNOW_SLEET", "WP"), new CodeItem("AT_MINUS_TEN_TO_ZERO", "AT")))
+                .build();
+        deliveryFee = DeliveryFeeDto.builder()
+                .cityId(1L)
+                .vehicleId(2L)
+                .baseFee(new BigDecimal("3.50"))
+                .extraFee(new BigDecimal("1.50"))
+                .totalFee(new BigDecimal("5.00"))
+                .build();
+    }
+
+    @Benchmark
+    public WeatherMeasurementDto mapMeasurement() {
+        return weatherMapper.toDto(measurement);
+    }
+
+    @Benchmark
+    public String serializeDeliveryFee() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(deliveryFee);
+    }
+}
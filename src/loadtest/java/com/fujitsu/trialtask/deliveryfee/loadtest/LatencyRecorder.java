@@ -0,0 +1,41 @@
+package com.fujitsu.trialtask.deliveryfee.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Start times and latencies of the requests of one worker. Not thread-safe, every worker has its own recorder.
+ */
+final class LatencyRecorder {
+    private long[] startNanos = new long[1 << 14];
+    private long[] latencyNanos = new long[1 << 14];
+    private int[] statuses = new int[1 << 14];
+    private int size;
+
+    void record(long start, long latency, int status) {
+        if (size == startNanos.length) {
+            startNanos = Arrays.copyOf(startNanos, size * 2);
+            latencyNanos = Arrays.copyOf(latencyNanos, size * 2);
+            statuses = Arrays.copyOf(statuses, size * 2);
+        }
+        startNanos[size] = start;
+        latencyNanos[size] = latency;
+        statuses[size] = status;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getStartNanos(int i) {
+        return startNanos[i];
+    }
+
+    long getLatencyNanos(int i) {
+        return latencyNanos[i];
+    }
+
+    int getStatus(int i) {
+        return statuses[i];
+    }
+}
@@ -0,0 +1,265 @@
+package com.fujitsu.trialtask.deliveryfee.loadtest;
+
+import com.fujitsu.trialtask.deliveryfee.DeliveryFeeApplication;
+import com.fujitsu.trialtask.deliveryfee.service.WeatherService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load generator for capacity planning. Starts the application on an in-memory database with the weather feed
+ * served by a local stub, then drives {@code GET api/delivery/fee/city/{cityId}/vehicle/{vehicleId}} from
+ * concurrent workers and reports latency percentiles and throughput. Weather ingests run at an interval during
+ * the measurement, latencies of requests that overlap an ingest are also reported separately.
+ * <p>
+ * Workers send their next request only when the previous one is answered, so under saturation the reported
+ * latencies understate what an open stream of clients would see; compare throughput between runs as well.
+ * Run with {@code ./gradlew loadTest}, see {@link LoadTestOptions} for the settings. With several thread modes the
+ * application is started once per mode and the modes are compared at the end, {@code ./gradlew loadTestThreadModes}
+ * compares platform and virtual threads under heavy concurrency.
+ */
+public final class LoadTest {
+    private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.fromSystemProperties();
+        List<Summary> summaries = new ArrayList<>();
+        for (LoadTestOptions.ThreadMode mode : options.threadModes()) {
+            summaries.add(run(options, mode));
+        }
+        if (summaries.size() > 1) {
+            printComparison(summaries);
+        }
+    }
+
+    private static Summary run(LoadTestOptions options, LoadTestOptions.ThreadMode mode) throws Exception {
+        if (mode == LoadTestOptions.ThreadMode.VIRTUAL && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need Java 21, run with -PjavaVersion=21");
+        }
+        System.out.printf("%n=== %s threads ===%n", mode.name().toLowerCase(Locale.ROOT));
+        try (WeatherFeedStub feed = WeatherFeedStub.start("/observations.xml");
+             ConfigurableApplicationContext context = startApplication(feed.getUrl(), mode)) {
+            WeatherService weatherService = context.getBean(WeatherService.class);
+            weatherService.updateWeather();
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            Summary summary = run(options, mode, "http://localhost:" + port + "/api/delivery/fee", weatherService);
+            System.out.printf("Weather feed requests: %d%n", feed.getRequestCount());
+            return summary;
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(String feedUrl, LoadTestOptions.ThreadMode mode) {
+        String name = mode.name().toLowerCase(Locale.ROOT);
+        return new SpringApplicationBuilder(DeliveryFeeApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:loadtest-" + name + ";DB_CLOSE_DELAY=-1",
+                        "spring.h2.console.enabled=false",
+                        "spring.threads.virtual.enabled=" + (mode == LoadTestOptions.ThreadMode.VIRTUAL),
+                        "weather.service.request-url=" + feedUrl,
+                        "weather.service.cron-expression=-",
+                        "weather.retention.cron-expression=-",
+                        "weather.provider.ilmateenistus.enabled=true",
+                        "weather.provider.file.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    private static Summary run(LoadTestOptions options, LoadTestOptions.ThreadMode mode, String baseUrl,
+                               WeatherService weatherService) throws InterruptedException {
+        URI[] targets = toWeightedTargets(options.mix(), baseUrl);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        long measureStart = System.nanoTime() + options.warmup().toNanos();
+        long measureEnd = measureStart + options.duration().toNanos();
+        List<long[]> ingestWindows = new CopyOnWriteArrayList<>();
+        ScheduledExecutorService ingestScheduler = Executors.newSingleThreadScheduledExecutor();
+        if (!options.ingestInterval().isZero()) {
+            long interval = options.ingestInterval().toNanos();
+            ingestScheduler.scheduleWithFixedDelay(() -> {
+                if (System.nanoTime() >= measureEnd) {
+                    return;
+                }
+                long start = System.nanoTime();
+                try {
+                    weatherService.updateWeather();
+                } catch (RuntimeException e) {
+                    System.err.println("Weather ingest failed: " + e);
+                }
+                ingestWindows.add(new long[]{start, System.nanoTime()});
+            }, measureStart - System.nanoTime() + interval, interval, TimeUnit.NANOSECONDS);
+        }
+
+        System.out.printf("Warming up for %s, then measuring for %s with %d workers%n",
+                options.warmup(), options.duration(), options.concurrency());
+        List<LatencyRecorder> recorders = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < options.concurrency(); i++) {
+            LatencyRecorder recorder = new LatencyRecorder();
+            recorders.add(recorder);
+            Thread worker = new Thread(() -> sendRequests(client, targets, measureStart, measureEnd, recorder),
+                    "loadtest-worker-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        ingestScheduler.shutdown();
+        ingestScheduler.awaitTermination(1, TimeUnit.MINUTES);
+
+        return report(mode, recorders, ingestWindows, options.duration());
+    }
+
+    private static void sendRequests(HttpClient client, URI[] targets, long measureStart, long measureEnd,
+                                     LatencyRecorder recorder) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long start;
+        while ((start = System.nanoTime()) < measureEnd) {
+            HttpRequest request = HttpRequest.newBuilder(targets[random.nextInt(targets.length)]).GET().build();
+            int status;
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long latency = System.nanoTime() - start;
+            if (start >= measureStart) {
+                recorder.record(start, latency, status);
+            }
+        }
+    }
+
+    /**
+     * @return one target per unit of weight, so that picking uniformly follows the mix
+     */
+    private static URI[] toWeightedTargets(List<LoadTestOptions.Pair> mix, String baseUrl) {
+        List<URI> targets = new ArrayList<>();
+        for (LoadTestOptions.Pair pair : mix) {
+            URI target = URI.create(baseUrl + "/city/" + pair.cityId() + "/vehicle/" + pair.vehicleId());
+            for (int i = 0; i < pair.weight(); i++) {
+                targets.add(target);
+            }
+        }
+        return targets.toArray(URI[]::new);
+    }
+
+    private static Summary report(LoadTestOptions.ThreadMode mode, List<LatencyRecorder> recorders,
+                                  List<long[]> ingestWindows, Duration duration) {
+        int total = recorders.stream().mapToInt(LatencyRecorder::size).sum();
+        long[] all = new long[total];
+        long[] duringIngest = new long[total];
+        long[] outsideIngest = new long[total];
+        int allCount = 0;
+        int duringCount = 0;
+        int outsideCount = 0;
+        int failed = 0;
+        Map<Integer, Integer> statuses = new TreeMap<>();
+        for (LatencyRecorder recorder : recorders) {
+            for (int i = 0; i < recorder.size(); i++) {
+                long start = recorder.getStartNanos(i);
+                long latency = recorder.getLatencyNanos(i);
+                all[allCount++] = latency;
+                if (overlaps(start, start + latency, ingestWindows)) {
+                    duringIngest[duringCount++] = latency;
+                } else {
+                    outsideIngest[outsideCount++] = latency;
+                }
+                int status = recorder.getStatus(i);
+                if (status == 0 || status >= 500) {
+                    failed++;
+                }
+                statuses.merge(status, 1, Integer::sum);
+            }
+        }
+
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf("%nRequests: %d, throughput: %.1f requests/s%n", total, total / seconds);
+        statuses.forEach((status, count) ->
+                System.out.printf("  %s: %d%n", status == 0 ? "connection error" : "HTTP " + status, count));
+        System.out.printf("Weather ingests: %d, durations (ms): %s%n", ingestWindows.size(),
+                ingestWindows.stream().map(w -> String.format("%.1f", (w[1] - w[0]) / (double) NANOS_PER_MILLI)).toList());
+        System.out.printf("%n%-16s %10s %10s %10s %10s %10s%n", "latency (ms)", "count", "p50", "p95", "p99", "max");
+        long[] sorted = Arrays.copyOf(all, allCount);
+        printLatencies("all", sorted);
+        printLatencies("during ingest", Arrays.copyOf(duringIngest, duringCount));
+        printLatencies("outside ingest", Arrays.copyOf(outsideIngest, outsideCount));
+        return total == 0
+                ? new Summary(mode, 0, 0, failed, 0, 0, 0, 0)
+                : new Summary(mode, total, total / seconds, failed, percentile(sorted, 50), percentile(sorted, 95),
+                percentile(sorted, 99), sorted[sorted.length - 1] / (double) NANOS_PER_MILLI);
+    }
+
+    private static void printComparison(List<Summary> summaries) {
+        System.out.printf("%n%-10s %10s %12s %10s %10s %10s %10s %10s%n",
+                "threads", "requests", "requests/s", "failed", "p50", "p95", "p99", "max");
+        for (Summary summary : summaries) {
+            System.out.printf("%-10s %10d %12.1f %10d %10.2f %10.2f %10.2f %10.2f%n",
+                    summary.mode().name().toLowerCase(Locale.ROOT), summary.requests(), summary.throughput(),
+                    summary.failed(), summary.p50(), summary.p95(), summary.p99(), summary.max());
+        }
+    }
+
+    /**
+     * Outcome of one thread mode over the whole measurement, latencies in milliseconds.
+     * Connection errors and 5xx responses count as failed.
+     */
+    private record Summary(LoadTestOptions.ThreadMode mode, int requests, double throughput, int failed,
+                           double p50, double p95, double p99, double max) {
+    }
+
+    private static boolean overlaps(long start, long end, List<long[]> windows) {
+        for (long[] window : windows) {
+            if (start < window[1] && end > window[0]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void printLatencies(String label, long[] latencies) {
+        if (latencies.length == 0) {
+            System.out.printf("%-16s %10d%n", label, 0);
+            return;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-16s %10d %10.2f %10.2f %10.2f %10.2f%n", label, latencies.length,
+                percentile(latencies, 50), percentile(latencies, 95), percentile(latencies, 99),
+                latencies[latencies.length - 1] / (double) NANOS_PER_MILLI);
+    }
+
+    /**
+     * @return nearest-rank percentile of the sorted latencies in milliseconds
+     */
+    private static double percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(rank - 1, 0)] / (double) NANOS_PER_MILLI;
+    }
+}
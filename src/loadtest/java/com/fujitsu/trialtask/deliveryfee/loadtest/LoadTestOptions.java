@@ -0,0 +1,83 @@
+package com.fujitsu.trialtask.deliveryfee.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Load test settings, read from {@code loadtest.*} system properties.
+ *
+ * @param concurrency    number of workers, each sends its next request when the previous one is answered
+ * @param warmup         time requests are sent before latencies are recorded
+ * @param duration       time latencies are recorded
+ * @param ingestInterval time between weather ingests while latencies are recorded, zero for no ingests
+ * @param mix            (city, vehicle) pairs to request and their weights
+ * @param threadModes    thread modes to run the application in, one after another on a fresh application
+ */
+record LoadTestOptions(int concurrency, Duration warmup, Duration duration, Duration ingestInterval, List<Pair> mix,
+                       List<ThreadMode> threadModes) {
+    /** All seeded pairs, requested equally often. **/
+    private static final String DEFAULT_MIX = "1:1,1:2,1:3,2:1,2:2,2:3,3:1,3:2,3:3";
+
+    /**
+     * @param cityId    city id
+     * @param vehicleId vehicle id
+     * @param weight    how often the pair is requested relative to the other pairs
+     */
+    record Pair(long cityId, long vehicleId, int weight) {
+    }
+
+    /**
+     * How the application handles requests, runs the scheduled ingest and fetches the weather providers.
+     */
+    enum ThreadMode {
+        /** Tomcat's request thread pool and platform threads. **/
+        PLATFORM,
+        /** Virtual threads, needs Java 21. **/
+        VIRTUAL
+    }
+
+    static LoadTestOptions fromSystemProperties() {
+        return new LoadTestOptions(
+                Integer.parseInt(System.getProperty("loadtest.concurrency", "16")),
+                Duration.parse(System.getProperty("loadtest.warmup", "PT10S")),
+                Duration.parse(System.getProperty("loadtest.duration", "PT30S")),
+                Duration.parse(System.getProperty("loadtest.ingest-interval", "PT10S")),
+                parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)),
+                parseThreadModes(System.getProperty("loadtest.thread-modes", "platform")));
+    }
+
+    /**
+     * @param threadModes comma separated thread modes, e.g. {@code platform,virtual}
+     * @return thread modes in the given order
+     */
+    static List<ThreadMode> parseThreadModes(String threadModes) {
+        List<ThreadMode> modes = new ArrayList<>();
+        for (String mode : threadModes.split(",")) {
+            modes.add(ThreadMode.valueOf(mode.trim().toUpperCase(Locale.ROOT)));
+        }
+        return modes;
+    }
+
+    /**
+     * @param mix comma separated {@code cityId:vehicleId[:weight]} pairs, e.g. {@code 1:1:3,2:3} requests
+     *            car in Tallinn three times as often as bike in Tartu
+     * @return pairs
+     */
+    static List<Pair> parseMix(String mix) {
+        List<Pair> pairs = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length < 2 || parts.length > 3) {
+                throw new IllegalArgumentException("Expected cityId:vehicleId[:weight] but got " + entry);
+            }
+            int weight = parts.length == 3 ? Integer.parseInt(parts[2]) : 1;
+            if (weight < 1) {
+                throw new IllegalArgumentException("Weight must be positive in " + entry);
+            }
+            pairs.add(new Pair(Long.parseLong(parts[0]), Long.parseLong(parts[1]), weight));
+        }
+        return pairs;
+    }
+}
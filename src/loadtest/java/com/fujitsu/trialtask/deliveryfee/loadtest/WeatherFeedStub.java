@@ -0,0 +1,83 @@
+package com.fujitsu.trialtask.deliveryfee.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the ilmateenistus.ee observations endpoint. Serves a recorded observations document with
+ * the observation timestamp set to the time of the request, so every ingest stores new measurements.
+ * Responses carry no validators, so requests are never answered with 304 Not Modified.
+ */
+final class WeatherFeedStub implements AutoCloseable {
+    private static final String PATH = "/observations.php";
+    private static final Pattern TIMESTAMP = Pattern.compile("(<observations\\s+timestamp=\")\\d+(\")");
+
+    private final HttpServer server;
+    private final String payload;
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    private WeatherFeedStub(HttpServer server, String payload) {
+        this.server = server;
+        this.payload = payload;
+    }
+
+    /**
+     * Starts the stub on a free local port.
+     *
+     * @param resource classpath resource of the recorded observations document
+     * @return WeatherFeedStub
+     */
+    static WeatherFeedStub start(String resource) throws IOException {
+        String payload;
+        try (InputStream input = WeatherFeedStub.class.getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new IOException("Recorded observations not found: " + resource);
+            }
+            payload = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        if (!TIMESTAMP.matcher(payload).find()) {
+            throw new IOException("Recorded observations have no observation timestamp: " + resource);
+        }
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        WeatherFeedStub stub = new WeatherFeedStub(server, payload);
+        server.createContext(PATH, stub::handle);
+        server.start();
+        return stub;
+    }
+
+    String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + PATH;
+    }
+
+    int getRequestCount() {
+        return requestCount.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        long timeInSeconds = System.currentTimeMillis() / 1000;
+        byte[] body = TIMESTAMP.matcher(payload)
+                .replaceFirst("$1" + Matcher.quoteReplacement(Long.toString(timeInSeconds)) + "$2")
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml; charset=UTF-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+}
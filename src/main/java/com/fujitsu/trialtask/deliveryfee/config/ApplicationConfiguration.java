@@ -1,15 +1,24 @@
 package com.fujitsu.trialtask.deliveryfee.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
 
 @Configuration
 @EnableScheduling
 public class ApplicationConfiguration {
+    /**
+     * Non-blocking client for the weather feed. Read timeouts are set per request by the provider.
+     */
     @Bean
-    public RestTemplate getRestTemplate() {
-        return new RestTemplate();
+    public HttpClient getHttpClient(@Value("${weather.provider.ilmateenistus.connect-timeout:PT5S}") Duration connectTimeout) {
+        return HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
     }
 }
@@ -1,29 +1,120 @@
 package com.fujitsu.trialtask.deliveryfee.controller;
 
 
-import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeDto;
+import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeOutcome;
+import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeRequestDto;
 import com.fujitsu.trialtask.deliveryfee.service.DeliveryFeeService;
+import com.fujitsu.trialtask.deliveryfee.service.FeeStreamService;
+import com.fujitsu.trialtask.deliveryfee.service.WeatherService;
+import com.fujitsu.trialtask.deliveryfee.util.enums.RejectionReason;
+import com.fujitsu.trialtask.deliveryfee.util.exception.ExceptionResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Slf4j
 @RestController
 @RequestMapping("api/delivery/fee")
 @RequiredArgsConstructor
 public class DeliveryFeeController {
     private final DeliveryFeeService deliveryService;
+    private final FeeStreamService feeStreamService;
+    private final WeatherService weatherService;
+    @Value("${delivery.fee.batch.max-size:1000}")
+    private int maxBatchSize;
 
     /**
      * Request a delivery fee calculation for a given vehicle in a given city.
+     * Current fees carry an ETag and may be cached until the next scheduled weather update. A conditional request
+     * with a matching ETag is answered with 304 Not Modified without calculating the fee.
+     * Rejected requests are answered with the status of the rejection reason and an error message.
      *
      * @param cityId    id of the city
      * @param vehicleId id of the vehicle
+     * @param at        optional ISO-8601 instant (e.g. 2025-03-23T10:15:30Z), calculates the fee with the weather at that time
      * @return Base fee, extra fee, total fee
      */
     @GetMapping("/city/{cityId}/vehicle/{vehicleId}")
-    public DeliveryFeeDto getDeliveryFee(@PathVariable("cityId") Long cityId, @PathVariable("vehicleId") Long vehicleId) {
-        return deliveryService.getDeliveryFee(cityId, vehicleId);
+    public ResponseEntity<?> getDeliveryFee(@PathVariable("cityId") Long cityId,
+                                            @PathVariable("vehicleId") Long vehicleId,
+                                            @RequestParam(name = "at", required = false) Instant at,
+                                            WebRequest request) {
+        if (at != null) {
+            return toResponse(deliveryService.getDeliveryFeeOutcomeAt(cityId, vehicleId, Timestamp.from(at)),
+                    ResponseEntity.ok());
+        }
+        // Taken before the fee, so that a snapshot swap in between can only make the ETag older than the fee.
+        Optional<String> eTag = deliveryService.getDeliveryFeeETag(cityId, vehicleId);
+        if (eTag.isEmpty()) {
+            return toResponse(deliveryService.getDeliveryFeeOutcome(cityId, vehicleId), ResponseEntity.ok());
+        }
+        CacheControl cacheControl = CacheControl.maxAge(weatherService.getTimeUntilNextUpdate());
+        if (request.checkNotModified(eTag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag.get()).cacheControl(cacheControl).build();
+        }
+        return toResponse(deliveryService.getDeliveryFeeOutcome(cityId, vehicleId),
+                ResponseEntity.ok().eTag(eTag.get()).cacheControl(cacheControl));
+    }
+
+    /**
+     * Request delivery fee calculations for many (city, vehicle) pairs in one call.
+     * An invalid pair, including a null pair or a pair with a missing id, does not fail the request, its result
+     * contains an error message instead of a fee. A batch of more than {@code delivery.fee.batch.max-size} pairs
+     * is answered with 400 Bad Request.
+     *
+     * @param requests list of (cityId, vehicleId) pairs
+     * @return Result for each pair in request order
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> getDeliveryFees(@RequestBody List<DeliveryFeeRequestDto> requests) {
+        if (requests.size() > maxBatchSize) {
+            return ResponseEntity.badRequest()
+                    .body(new ExceptionResponse("At most " + maxBatchSize + " pairs are allowed in a batch"));
+        }
+        return ResponseEntity.ok(deliveryService.getDeliveryFees(requests));
+    }
+
+    /**
+     * Answers with the fee, or with the rejection's status and message. Headers of the fee response are not
+     * added to a rejection.
+     */
+    private static ResponseEntity<?> toResponse(DeliveryFeeOutcome outcome, ResponseEntity.BodyBuilder feeResponse) {
+        if (!outcome.isRejected()) {
+            return feeResponse.body(outcome.fee());
+        }
+        RejectionReason reason = outcome.rejection();
+        if (reason == RejectionReason.WEATHER_UNAVAILABLE) {
+            log.error("err: {}. WMO: {}", reason.getMessage(), outcome.WMOcode());
+        }
+        return ResponseEntity.status(reason.getStatus()).body(new ExceptionResponse(reason.getMessage()));
+    }
+
+    /**
+     * Subscribe to delivery fee changes. After every weather update or rule change, a "fee-changes" event is sent
+     * with the results of the (city, vehicle) pairs whose fee or prohibition status changed.
+     *
+     * @return Server-sent event stream
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamFeeChanges() {
+        return feeStreamService.subscribe();
     }
 }
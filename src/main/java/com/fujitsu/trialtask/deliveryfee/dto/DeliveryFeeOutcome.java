@@ -0,0 +1,61 @@
+package com.fujitsu.trialtask.deliveryfee.dto;
+
+import com.fujitsu.trialtask.deliveryfee.util.enums.RejectionReason;
+import com.fujitsu.trialtask.deliveryfee.util.exception.DeliveryFeeException;
+import com.fujitsu.trialtask.deliveryfee.util.exception.WeatherDataException;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Outcome of a delivery fee request: either the fee, or the reason it was rejected.
+ * Rejections are returned rather than thrown, so a rejected request costs no more than a calculated one.
+ *
+ * @param fee       fee, null if rejected
+ * @param rejection rejection reason, null if the fee is present
+ * @param WMOcode   station without weather data, only for {@link RejectionReason#WEATHER_UNAVAILABLE}
+ */
+public record DeliveryFeeOutcome(DeliveryFeeDto fee, RejectionReason rejection, Integer WMOcode) {
+    private static final Map<RejectionReason, DeliveryFeeOutcome> REJECTED = new EnumMap<>(RejectionReason.class);
+
+    static {
+        for (RejectionReason reason : RejectionReason.values()) {
+            REJECTED.put(reason, new DeliveryFeeOutcome(null, reason, null));
+        }
+    }
+
+    public static DeliveryFeeOutcome fee(DeliveryFeeDto fee) {
+        return new DeliveryFeeOutcome(fee, null, null);
+    }
+
+    /**
+     * @param reason rejection reason other than missing weather data
+     * @return the shared outcome of the reason
+     */
+    public static DeliveryFeeOutcome rejected(RejectionReason reason) {
+        return REJECTED.get(reason);
+    }
+
+    public static DeliveryFeeOutcome weatherUnavailable(Integer WMOcode) {
+        return new DeliveryFeeOutcome(null, RejectionReason.WEATHER_UNAVAILABLE, WMOcode);
+    }
+
+    public boolean isRejected() {
+        return rejection != null;
+    }
+
+    /**
+     * @return the fee
+     * @throws DeliveryFeeException The request was rejected
+     * @throws WeatherDataException Weather data for the city's station is not available
+     */
+    public DeliveryFeeDto orElseThrow() throws DeliveryFeeException, WeatherDataException {
+        if (rejection == null) {
+            return fee;
+        }
+        if (rejection == RejectionReason.WEATHER_UNAVAILABLE) {
+            throw new WeatherDataException(rejection.getMessage(), WMOcode);
+        }
+        throw DeliveryFeeException.of(rejection);
+    }
+}
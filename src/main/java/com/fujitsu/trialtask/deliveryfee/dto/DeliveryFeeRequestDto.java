@@ -0,0 +1,18 @@
+package com.fujitsu.trialtask.deliveryfee.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryFeeRequestDto {
+    @NotNull
+    private Long cityId;
+    @NotNull
+    private Long vehicleId;
+}
@@ -0,0 +1,16 @@
+package com.fujitsu.trialtask.deliveryfee.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Result of a single (city, vehicle) pair in a batch request. Either fee or error is present.
+ */
+@Data
+@Builder
+public class DeliveryFeeResultDto {
+    private Long cityId;
+    private Long vehicleId;
+    private DeliveryFeeDto fee;
+    private String error;
+}
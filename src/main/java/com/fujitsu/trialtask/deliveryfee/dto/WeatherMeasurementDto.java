@@ -1,9 +1,11 @@
 package com.fujitsu.trialtask.deliveryfee.dto;
 
+import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
 import lombok.Builder;
 import lombok.Data;
 
 import java.sql.Timestamp;
+import java.util.List;
 
 @Data
 @Builder
@@ -14,4 +16,6 @@ public class WeatherMeasurementDto {
     private Float airTemperature;
     private Float windSpeed;
     private String phenomenon;
+    private boolean classified;
+    private List<CodeItem> codeItems;
 }
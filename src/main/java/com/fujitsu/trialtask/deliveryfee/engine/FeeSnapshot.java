@@ -0,0 +1,121 @@
+package com.fujitsu.trialtask.deliveryfee.engine;
+
+import com.fujitsu.trialtask.deliveryfee.util.enums.RejectionReason;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Immutable, precomputed delivery fee outcomes for every (city, vehicle) pair.
+ * Built after each weather update so that fee requests can be answered without database access.
+ */
+public final class FeeSnapshot {
+    private final Set<Long> vehicleIds;
+    private final Map<Long, Map<Long, Entry>> entriesByCity;
+    private final Map<Long, Long> measurementTimesByCity;
+    private final long rulesVersion;
+
+    /**
+     * @param vehicleIds             ids of all vehicles
+     * @param entriesByCity          Map(Key: city id, Value: Map(Key: vehicle id, Value: Entry))
+     * @param measurementTimesByCity Map(Key: city id, Value: timestamp in milliseconds of the measurement the city's
+     *                               entries are based on). Cities without weather data are left out.
+     * @param rulesVersion           version of the fee and prohibition rules the entries are based on
+     */
+    public FeeSnapshot(Set<Long> vehicleIds, Map<Long, Map<Long, Entry>> entriesByCity,
+                       Map<Long, Long> measurementTimesByCity, long rulesVersion) {
+        this.vehicleIds = Set.copyOf(vehicleIds);
+        Map<Long, Map<Long, Entry>> entries = new HashMap<>();
+        entriesByCity.forEach((cityId, byVehicle) -> entries.put(cityId, Map.copyOf(byVehicle)));
+        this.entriesByCity = Map.copyOf(entries);
+        this.measurementTimesByCity = Map.copyOf(measurementTimesByCity);
+        this.rulesVersion = rulesVersion;
+    }
+
+    /*
+     * The immutable collections throw on null lookups, so null ids are answered as unknown before querying them.
+     */
+
+    public boolean hasVehicle(Long vehicleId) {
+        return vehicleId != null && vehicleIds.contains(vehicleId);
+    }
+
+    public boolean hasCity(Long cityId) {
+        return cityId != null && entriesByCity.containsKey(cityId);
+    }
+
+    public Optional<Entry> getEntry(Long cityId, Long vehicleId) {
+        if (cityId == null || vehicleId == null) {
+            return Optional.empty();
+        }
+        Map<Long, Entry> byVehicle = entriesByCity.get(cityId);
+        return byVehicle == null ? Optional.empty() : Optional.ofNullable(byVehicle.get(vehicleId));
+    }
+
+    /**
+     * The entity tag of a pair's outcome. It changes only when the city's measurement or the rules change.
+     *
+     * @param cityId    city id
+     * @param vehicleId vehicle id
+     * @return quoted entity tag, or empty if the pair has no outcome based on weather data
+     */
+    public Optional<String> getETag(Long cityId, Long vehicleId) {
+        Long measurementTime = cityId == null ? null : measurementTimesByCity.get(cityId);
+        if (measurementTime == null || !hasVehicle(vehicleId)) {
+            return Optional.empty();
+        }
+        return Optional.of("\"" + cityId + "-" + vehicleId + "-" + measurementTime + "-" + rulesVersion + "\"");
+    }
+
+    /**
+     * @param previous snapshot this one replaces
+     * @return (city, vehicle) pairs whose outcome differs from the previous snapshot or that are new, as
+     * Map(Key: city id, Value: vehicle ids)
+     */
+    public Map<Long, Set<Long>> getChangedPairs(FeeSnapshot previous) {
+        Map<Long, Set<Long>> changed = new HashMap<>();
+        entriesByCity.forEach((cityId, byVehicle) -> {
+            Map<Long, Entry> previousByVehicle = previous.entriesByCity.getOrDefault(cityId, Map.of());
+            byVehicle.forEach((vehicleId, entry) -> {
+                if (!entry.equals(previousByVehicle.get(vehicleId))) {
+                    changed.computeIfAbsent(cityId, id -> new HashSet<>()).add(vehicleId);
+                }
+            });
+        });
+        return changed;
+    }
+
+    /**
+     * Outcome of a fee request for one (city, vehicle) pair. Either the fees are present, or the request is
+     * rejected with a reason, or weather data for the city's station was not available.
+     * Fees are kept in cents.
+     */
+    public record Entry(long baseFeeCents,
+                        long extraFeeCents,
+                        RejectionReason rejection,
+                        Integer unavailableWMOcode) {
+
+        public static Entry fee(long baseFeeCents, long extraFeeCents) {
+            return new Entry(baseFeeCents, extraFeeCents, null, null);
+        }
+
+        public static Entry rejected(RejectionReason reason) {
+            return new Entry(0, 0, reason, null);
+        }
+
+        public static Entry weatherUnavailable(Integer WMOcode) {
+            return new Entry(0, 0, RejectionReason.WEATHER_UNAVAILABLE, WMOcode);
+        }
+
+        public long totalFeeCents() {
+            return baseFeeCents + extraFeeCents;
+        }
+
+        public boolean isRejected() {
+            return rejection != null;
+        }
+    }
+}
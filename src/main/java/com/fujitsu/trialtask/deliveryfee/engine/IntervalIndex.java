@@ -0,0 +1,89 @@
+package com.fujitsu.trialtask.deliveryfee.engine;
+
+import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
+import com.fujitsu.trialtask.deliveryfee.entity.SevereWeatherCondition;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Severe weather condition ranges of one code class, sorted by their lower bound.
+ * If the rule defines both min & max, they are inclusive.
+ * If the rule defines only min OR max, it is exclusive.
+ * Rules without min and max never match.
+ */
+public final class IntervalIndex {
+    private final double[] lowers;
+    private final double[] uppers;
+    private final boolean[] inclusive;
+    private final CodeItem[] codeItems;
+
+    private IntervalIndex(double[] lowers, double[] uppers, boolean[] inclusive, CodeItem[] codeItems) {
+        this.lowers = lowers;
+        this.uppers = uppers;
+        this.inclusive = inclusive;
+        this.codeItems = codeItems;
+    }
+
+    public static IntervalIndex compile(List<SevereWeatherCondition> conditions) {
+        List<SevereWeatherCondition> ranges = conditions.stream()
+                .filter(c -> c.getMinMeasurement() != null || c.getMaxMeasurement() != null)
+                .sorted(Comparator.comparingDouble(IntervalIndex::lowerOf))
+                .toList();
+
+        int size = ranges.size();
+        double[] lowers = new double[size];
+        double[] uppers = new double[size];
+        boolean[] inclusive = new boolean[size];
+        CodeItem[] codeItems = new CodeItem[size];
+        for (int i = 0; i < size; i++) {
+            SevereWeatherCondition condition = ranges.get(i);
+            lowers[i] = lowerOf(condition);
+            uppers[i] = condition.getMaxMeasurement() == null
+                    ? Double.POSITIVE_INFINITY : condition.getMaxMeasurement();
+            inclusive[i] = condition.getMinMeasurement() != null && condition.getMaxMeasurement() != null;
+            codeItems[i] = condition.getCodeItem();
+        }
+        return new IntervalIndex(lowers, uppers, inclusive, codeItems);
+    }
+
+    /**
+     * Adds the code items of all ranges containing the measurement to target.
+     *
+     * @param measurement weather measurement, e.g. air temperature
+     * @param target      list the matching code items are added to
+     */
+    public void collect(double measurement, List<CodeItem> target) {
+        // Only ranges with a lower bound not above the measurement can contain it.
+        int end = upperBound(measurement);
+        for (int i = 0; i < end; i++) {
+            boolean matches = inclusive[i]
+                    ? measurement >= lowers[i] && measurement <= uppers[i]
+                    : measurement > lowers[i] && measurement < uppers[i];
+            if (matches) {
+                target.add(codeItems[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return codeItems.length;
+    }
+
+    private int upperBound(double measurement) {
+        int index = Arrays.binarySearch(lowers, measurement);
+        if (index < 0) {
+            return -index - 1;
+        }
+        // Step over equal lower bounds, binarySearch may return any of them.
+        while (index < lowers.length && lowers[index] == measurement) {
+            index++;
+        }
+        return index;
+    }
+
+    private static double lowerOf(SevereWeatherCondition condition) {
+        return condition.getMinMeasurement() == null ? Double.NEGATIVE_INFINITY : condition.getMinMeasurement();
+    }
+}
@@ -0,0 +1,79 @@
+package com.fujitsu.trialtask.deliveryfee.engine;
+
+import com.fujitsu.trialtask.deliveryfee.dto.WeatherMeasurementDto;
+import com.fujitsu.trialtask.deliveryfee.dto.WeatherStationDto;
+import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Latest weather measurement of each station, kept in an array indexed by WMO code.
+ * WMO station codes have five digits, codes outside that range are not indexed.
+ * Measurements are stored as immutable copies and every caller gets a DTO of its own, so a caller modifying
+ * its DTO does not change what other callers see.
+ */
+public final class LatestMeasurementIndex {
+    private static final int MAX_WMO_CODE = 99_999;
+
+    private final AtomicReferenceArray<Entry> measurements = new AtomicReferenceArray<>(MAX_WMO_CODE + 1);
+
+    public WeatherMeasurementDto get(Integer WMOcode) {
+        if (!isIndexed(WMOcode)) {
+            return null;
+        }
+        Entry entry = measurements.get(WMOcode);
+        return entry == null ? null : entry.toDto();
+    }
+
+    /**
+     * Stores a copy of the measurement unless the index already holds a newer one for the station.
+     *
+     * @param measurement latest known measurement of a station
+     */
+    public void update(WeatherMeasurementDto measurement) {
+        Integer WMOcode = measurement.getWeatherStation().getWMOcode();
+        if (!isIndexed(WMOcode)) {
+            return;
+        }
+        Entry entry = Entry.of(measurement);
+        Entry current;
+        do {
+            current = measurements.get(WMOcode);
+            if (current != null && current.timestamp().isAfter(entry.timestamp())) {
+                return;
+            }
+        } while (!measurements.compareAndSet(WMOcode, current, entry));
+    }
+
+    private static boolean isIndexed(Integer WMOcode) {
+        return WMOcode != null && WMOcode >= 0 && WMOcode <= MAX_WMO_CODE;
+    }
+
+    private record Entry(Long id, Instant timestamp, Integer WMOcode, String stationName, Float airTemperature,
+                         Float windSpeed, String phenomenon, boolean classified, List<CodeItem> codeItems) {
+
+        static Entry of(WeatherMeasurementDto measurement) {
+            WeatherStationDto station = measurement.getWeatherStation();
+            return new Entry(measurement.getId(), measurement.getTimestamp().toInstant(), station.getWMOcode(),
+                    station.getName(), measurement.getAirTemperature(), measurement.getWindSpeed(),
+                    measurement.getPhenomenon(), measurement.isClassified(),
+                    measurement.getCodeItems() == null ? null : List.copyOf(measurement.getCodeItems()));
+        }
+
+        WeatherMeasurementDto toDto() {
+            return WeatherMeasurementDto.builder()
+                    .id(id)
+                    .timestamp(Timestamp.from(timestamp))
+                    .weatherStation(WeatherStationDto.builder().WMOcode(WMOcode).name(stationName).build())
+                    .airTemperature(airTemperature)
+                    .windSpeed(windSpeed)
+                    .phenomenon(phenomenon)
+                    .classified(classified)
+                    .codeItems(codeItems)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.fujitsu.trialtask.deliveryfee.engine;
+
+import com.fujitsu.trialtask.deliveryfee.entity.WeatherMeasurement;
+import com.fujitsu.trialtask.deliveryfee.entity.WeatherMeasurementAggregate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rolls weather measurements and finer-grained aggregates of one station and period up into an aggregate.
+ * Aggregates are weighted by their measurement count, so rolling up in steps gives the same averages
+ * as rolling up the measurements directly, as long as no readings are missing.
+ */
+public final class MeasurementAccumulator {
+    private int count;
+    private final Reading airTemperature = new Reading();
+    private final Reading windSpeed = new Reading();
+    private final Map<String, Integer> phenomena = new HashMap<>();
+
+    public void add(WeatherMeasurement measurement) {
+        count++;
+        airTemperature.add(measurement.getAirTemperature(), measurement.getAirTemperature(),
+                measurement.getAirTemperature(), 1);
+        windSpeed.add(measurement.getWindSpeed(), measurement.getWindSpeed(), measurement.getWindSpeed(), 1);
+        addPhenomenon(measurement.getPhenomenon(), 1);
+    }
+
+    public void add(WeatherMeasurementAggregate aggregate) {
+        int weight = aggregate.getMeasurementCount();
+        count += weight;
+        airTemperature.add(aggregate.getMinAirTemperature(), aggregate.getMaxAirTemperature(),
+                aggregate.getAvgAirTemperature(), weight);
+        windSpeed.add(aggregate.getMinWindSpeed(), aggregate.getMaxWindSpeed(), aggregate.getAvgWindSpeed(), weight);
+        addPhenomenon(aggregate.getPhenomenon(), weight);
+    }
+
+    /**
+     * Writes the accumulated values to the aggregate, replacing its previous values.
+     * Add the aggregate's own values first to merge into it.
+     *
+     * @param aggregate aggregate to write to
+     */
+    public void writeTo(WeatherMeasurementAggregate aggregate) {
+        aggregate.setMeasurementCount(count);
+        aggregate.setMinAirTemperature(airTemperature.min());
+        aggregate.setMaxAirTemperature(airTemperature.max());
+        aggregate.setAvgAirTemperature(airTemperature.avg());
+        aggregate.setMinWindSpeed(windSpeed.min());
+        aggregate.setMaxWindSpeed(windSpeed.max());
+        aggregate.setAvgWindSpeed(windSpeed.avg());
+        aggregate.setPhenomenon(getDominantPhenomenon());
+    }
+
+    private void addPhenomenon(String phenomenon, int weight) {
+        if (phenomenon != null && !phenomenon.isBlank()) {
+            phenomena.merge(phenomenon, weight, Integer::sum);
+        }
+    }
+
+    /**
+     * @return most frequent phenomenon, ties broken alphabetically so that the result does not depend on order
+     */
+    private String getDominantPhenomenon() {
+        String dominant = null;
+        int dominantCount = 0;
+        for (Map.Entry<String, Integer> entry : phenomena.entrySet()) {
+            if (entry.getValue() > dominantCount
+                    || (entry.getValue() == dominantCount && entry.getKey().compareTo(dominant) < 0)) {
+                dominant = entry.getKey();
+                dominantCount = entry.getValue();
+            }
+        }
+        return dominant;
+    }
+
+    private static final class Reading {
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double sum;
+        private long weight;
+
+        void add(Float min, Float max, Float avg, int weight) {
+            if (avg == null) {
+                return;
+            }
+            this.min = Math.min(this.min, min != null ? min : avg);
+            this.max = Math.max(this.max, max != null ? max : avg);
+            sum += (double) avg * weight;
+            this.weight += weight;
+        }
+
+        Float min() {
+            return weight == 0 ? null : (float) min;
+        }
+
+        Float max() {
+            return weight == 0 ? null : (float) max;
+        }
+
+        Float avg() {
+            return weight == 0 ? null : (float) (sum / weight);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.fujitsu.trialtask.deliveryfee.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton that finds all phenomenon patterns contained in a text in a single pass.
+ * Matching is case-insensitive and allocates nothing but the result.
+ * Each pattern belongs to a group (e.g. a severe weather condition), a match reports the groups as a bitmask
+ * of as many longs as the groups need, so the number of groups is not limited.
+ */
+public final class PhenomenonMatcher {
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    /** Bitmask words of the groups matched at each state, the words of a state are stored next to each other. **/
+    private final long[] output;
+    private final int words;
+
+    private PhenomenonMatcher(char[][] edgeChars, int[][] edgeTargets, int[] fail, long[] output, int words) {
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.output = output;
+        this.words = words;
+    }
+
+    /**
+     * Builds the automaton.
+     *
+     * @param patternGroups patterns of each group, group index is the position in the list
+     * @return PhenomenonMatcher
+     */
+    public static PhenomenonMatcher compile(List<List<String>> patternGroups) {
+        int words = Math.max(1, (patternGroups.size() + Long.SIZE - 1) / Long.SIZE);
+
+        List<TreeMap<Character, Integer>> edges = new ArrayList<>();
+        List<long[]> outputs = new ArrayList<>();
+        edges.add(new TreeMap<>());
+        outputs.add(new long[words]);
+        for (int group = 0; group < patternGroups.size(); group++) {
+            for (String pattern : patternGroups.get(group)) {
+                int state = 0;
+                for (int i = 0; i < pattern.length(); i++) {
+                    char c = Character.toLowerCase(pattern.charAt(i));
+                    Integer next = edges.get(state).get(c);
+                    if (next == null) {
+                        next = edges.size();
+                        edges.add(new TreeMap<>());
+                        outputs.add(new long[words]);
+                        edges.get(state).put(c, next);
+                    }
+                    state = next;
+                }
+                outputs.get(state)[group / Long.SIZE] |= 1L << group;
+            }
+        }
+
+        int stateCount = edges.size();
+        char[][] edgeChars = new char[stateCount][];
+        int[][] edgeTargets = new int[stateCount][];
+        int[] fail = new int[stateCount];
+        long[] output = new long[stateCount * words];
+        for (int state = 0; state < stateCount; state++) {
+            Map<Character, Integer> stateEdges = edges.get(state);
+            edgeChars[state] = new char[stateEdges.size()];
+            edgeTargets[state] = new int[stateEdges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : stateEdges.entrySet()) {
+                edgeChars[state][i] = edge.getKey();
+                edgeTargets[state][i] = edge.getValue();
+                i++;
+            }
+            System.arraycopy(outputs.get(state), 0, output, state * words, words);
+        }
+
+        // Breadth-first, so the failure state of every parent is known before its children.
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : edgeTargets[0]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < edgeChars[state].length; i++) {
+                char c = edgeChars[state][i];
+                int child = edgeTargets[state][i];
+                int fallback = fail[state];
+                int next = transition(edgeChars, edgeTargets, fallback, c);
+                while (next < 0 && fallback != 0) {
+                    fallback = fail[fallback];
+                    next = transition(edgeChars, edgeTargets, fallback, c);
+                }
+                fail[child] = next < 0 ? 0 : next;
+                for (int word = 0; word < words; word++) {
+                    output[child * words + word] |= output[fail[child] * words + word];
+                }
+                queue.add(child);
+            }
+        }
+        return new PhenomenonMatcher(edgeChars, edgeTargets, fail, output, words);
+    }
+
+    /**
+     * Finds the groups with at least one pattern contained in the text, ignoring case.
+     *
+     * @param text e.g. weather phenomenon from a measurement
+     * @return bitmask of matched group indexes, group i is bit i % 64 of word i / 64
+     */
+    public long[] match(CharSequence text) {
+        // An empty pattern is contained in every text.
+        long[] matched = new long[words];
+        addOutput(matched, 0);
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next = transition(edgeChars, edgeTargets, state, c);
+            while (next < 0 && state != 0) {
+                state = fail[state];
+                next = transition(edgeChars, edgeTargets, state, c);
+            }
+            state = next < 0 ? 0 : next;
+            addOutput(matched, state);
+        }
+        return matched;
+    }
+
+    private void addOutput(long[] matched, int state) {
+        int offset = state * words;
+        for (int word = 0; word < words; word++) {
+            matched[word] |= output[offset + word];
+        }
+    }
+
+    private static int transition(char[][] edgeChars, int[][] edgeTargets, int state, char c) {
+        char[] chars = edgeChars[state];
+        int low = 0;
+        int high = chars.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (chars[mid] < c) {
+                low = mid + 1;
+            } else if (chars[mid] > c) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[state][mid];
+            }
+        }
+        return -1;
+    }
+}
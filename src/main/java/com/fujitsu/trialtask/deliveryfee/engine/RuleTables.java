@@ -0,0 +1,104 @@
+package com.fujitsu.trialtask.deliveryfee.engine;
+
+import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
+import com.fujitsu.trialtask.deliveryfee.projection.ExtraFeeRow;
+import com.fujitsu.trialtask.deliveryfee.projection.WorkProhibitionRow;
+import com.fujitsu.trialtask.deliveryfee.util.MoneyUtil;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Work prohibitions and extra fees in primitive form. Code items are interned to small ints,
+ * prohibitions are a bitmask of code items per vehicle and extra fees an array of cents per vehicle,
+ * indexed by code item. A bitmask has as many longs as the code items need, code item i is bit i % 64
+ * of word i / 64.
+ */
+public final class RuleTables {
+    private final Map<String, Integer> codeIndexes;
+    private final Map<Long, long[]> prohibitedCodes;
+    private final Map<Long, long[]> extraFeeCents;
+    private final int words;
+
+    private RuleTables(Map<String, Integer> codeIndexes, Map<Long, long[]> prohibitedCodes,
+                       Map<Long, long[]> extraFeeCents, int words) {
+        this.codeIndexes = codeIndexes;
+        this.prohibitedCodes = prohibitedCodes;
+        this.extraFeeCents = extraFeeCents;
+        this.words = words;
+    }
+
+    /**
+     * @param codeItems    all code items
+     * @param prohibitions all work prohibitions as (vehicle id, code) rows
+     * @param extraFees    all extra fees as (vehicle id, code, amount) rows
+     * @return RuleTables
+     */
+    public static RuleTables build(List<CodeItem> codeItems, List<WorkProhibitionRow> prohibitions,
+                                   List<ExtraFeeRow> extraFees) {
+        int words = Math.max(1, (codeItems.size() + Long.SIZE - 1) / Long.SIZE);
+        Map<String, Integer> codeIndexes = new HashMap<>();
+        for (CodeItem codeItem : codeItems) {
+            codeIndexes.put(codeItem.getCode(), codeIndexes.size());
+        }
+
+        Map<Long, long[]> prohibitedCodes = new HashMap<>();
+        for (WorkProhibitionRow prohibition : prohibitions) {
+            int index = codeIndexes.get(prohibition.code());
+            prohibitedCodes.computeIfAbsent(prohibition.vehicleId(), id -> new long[words])[index / Long.SIZE]
+                    |= 1L << index;
+        }
+
+        Map<Long, long[]> extraFeeCents = new HashMap<>();
+        for (ExtraFeeRow extraFee : extraFees) {
+            long[] fees = extraFeeCents.computeIfAbsent(extraFee.vehicleId(), id -> new long[codeIndexes.size()]);
+            fees[codeIndexes.get(extraFee.code())] = MoneyUtil.toCents(extraFee.feeAmount());
+        }
+        return new RuleTables(Map.copyOf(codeIndexes), Map.copyOf(prohibitedCodes), Map.copyOf(extraFeeCents),
+                words);
+    }
+
+    /**
+     * @param codeItems weather code items
+     * @return bitmask of the code items, unknown codes are ignored
+     */
+    public long[] toCodeMask(List<CodeItem> codeItems) {
+        long[] mask = new long[words];
+        for (CodeItem codeItem : codeItems) {
+            Integer index = codeIndexes.get(codeItem.getCode());
+            if (index != null) {
+                mask[index / Long.SIZE] |= 1L << index;
+            }
+        }
+        return mask;
+    }
+
+    public boolean isProhibited(Long vehicleId, long[] codeMask) {
+        long[] prohibited = prohibitedCodes.get(vehicleId);
+        if (prohibited == null) {
+            return false;
+        }
+        for (int word = 0; word < words; word++) {
+            if ((prohibited[word] & codeMask[word]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long sumExtraFeeCents(Long vehicleId, long[] codeMask) {
+        long[] fees = extraFeeCents.get(vehicleId);
+        if (fees == null) {
+            return 0;
+        }
+        long total = 0;
+        for (int word = 0; word < words; word++) {
+            // Visits only the set bits, lowest first.
+            for (long remaining = codeMask[word]; remaining != 0; remaining &= remaining - 1) {
+                total += fees[word * Long.SIZE + Long.numberOfTrailingZeros(remaining)];
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,84 @@
+package com.fujitsu.trialtask.deliveryfee.engine;
+
+import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
+import com.fujitsu.trialtask.deliveryfee.entity.SevereWeatherCondition;
+import com.fujitsu.trialtask.deliveryfee.util.enums.CodeClass;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Severe weather conditions compiled into in-memory structures: a sorted interval index for air temperature and
+ * wind speed and an Aho-Corasick matcher for weather phenomena.
+ * Immutable, classifying a measurement does not touch the database.
+ */
+public final class WeatherConditionEngine {
+    private final IntervalIndex airTemperatureIndex;
+    private final IntervalIndex windSpeedIndex;
+    private final PhenomenonMatcher phenomenonMatcher;
+    private final CodeItem[] phenomenonCodeItems;
+
+    private WeatherConditionEngine(IntervalIndex airTemperatureIndex, IntervalIndex windSpeedIndex,
+                                   PhenomenonMatcher phenomenonMatcher, CodeItem[] phenomenonCodeItems) {
+        this.airTemperatureIndex = airTemperatureIndex;
+        this.windSpeedIndex = windSpeedIndex;
+        this.phenomenonMatcher = phenomenonMatcher;
+        this.phenomenonCodeItems = phenomenonCodeItems;
+    }
+
+    /**
+     * @param conditions all severe weather conditions with their code items and phenomena loaded
+     * @return WeatherConditionEngine
+     */
+    public static WeatherConditionEngine compile(List<SevereWeatherCondition> conditions) {
+        List<SevereWeatherCondition> phenomenonConditions = ofCodeClass(conditions, CodeClass.WP);
+        List<List<String>> patternGroups = phenomenonConditions.stream()
+                .map(c -> c.getPhenomena() == null ? List.<String>of() : c.getPhenomena())
+                .toList();
+        CodeItem[] phenomenonCodeItems = phenomenonConditions.stream()
+                .map(SevereWeatherCondition::getCodeItem)
+                .toArray(CodeItem[]::new);
+
+        return new WeatherConditionEngine(
+                IntervalIndex.compile(ofCodeClass(conditions, CodeClass.AT)),
+                IntervalIndex.compile(ofCodeClass(conditions, CodeClass.WS)),
+                PhenomenonMatcher.compile(patternGroups),
+                phenomenonCodeItems
+        );
+    }
+
+    /**
+     * Finds the code items of all severe weather conditions that apply to the given readings.
+     * Null readings and blank phenomena match nothing.
+     *
+     * @param airTemperature air temperature
+     * @param windSpeed      wind speed
+     * @param phenomenon     weather phenomenon, matched case-insensitively
+     * @return List of matched code items: phenomenon codes first, then air temperature and wind speed codes
+     */
+    public List<CodeItem> classify(Float airTemperature, Float windSpeed, String phenomenon) {
+        List<CodeItem> items = new ArrayList<>(4);
+        if (phenomenon != null && !phenomenon.isBlank()) {
+            long[] matched = phenomenonMatcher.match(phenomenon);
+            for (int word = 0; word < matched.length; word++) {
+                for (long bits = matched[word]; bits != 0; bits &= bits - 1) {
+                    items.add(phenomenonCodeItems[word * Long.SIZE + Long.numberOfTrailingZeros(bits)]);
+                }
+            }
+        }
+        if (airTemperature != null) {
+            airTemperatureIndex.collect(airTemperature, items);
+        }
+        if (windSpeed != null) {
+            windSpeedIndex.collect(windSpeed, items);
+        }
+        return items;
+    }
+
+    private static List<SevereWeatherCondition> ofCodeClass(List<SevereWeatherCondition> conditions,
+                                                            CodeClass codeClass) {
+        return conditions.stream()
+                .filter(c -> codeClass.name().equals(c.getCodeItem().getCodeClass()))
+                .toList();
+    }
+}
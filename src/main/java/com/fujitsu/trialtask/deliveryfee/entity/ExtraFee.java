@@ -1,7 +1,10 @@
 package com.fujitsu.trialtask.deliveryfee.entity;
 
+import com.fujitsu.trialtask.deliveryfee.entity.listener.RulesChangedListener;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -14,16 +17,21 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Table(name = "extra_fee")
+@EntityListeners(RulesChangedListener.class)
 public class ExtraFee {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
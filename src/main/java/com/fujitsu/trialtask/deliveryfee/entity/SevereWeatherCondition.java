@@ -1,9 +1,12 @@
 package com.fujitsu.trialtask.deliveryfee.entity;
 
+import com.fujitsu.trialtask.deliveryfee.entity.listener.RulesChangedListener;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -13,15 +16,20 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "severe_weather_condition")
+@EntityListeners(RulesChangedListener.class)
 public class SevereWeatherCondition {
     @Id
     @Column(name = "id")
@@ -40,6 +48,7 @@ public class SevereWeatherCondition {
 
     /**Only one of the phenomenons has to apply (OR operator)**/
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @CollectionTable(name = "weather_phenomenon", joinColumns = @JoinColumn(name = "severe_weather_condition_id"))
     @Column(name = "phenomenon")
     private List<String> phenomena;
@@ -6,8 +6,12 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.JoinTable;
+import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -15,6 +19,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.sql.Timestamp;
+import java.util.List;
 
 @Entity
 @Getter
@@ -22,10 +27,12 @@ import java.sql.Timestamp;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "weather_measurement")
+@Table(name = "weather_measurement", uniqueConstraints = @UniqueConstraint(
+        name = "uq_weather_measurement_station_timestamp", columnNames = {"weather_station_wmo_code", "timestamp"}))
 public class WeatherMeasurement {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "weather_measurement_seq")
+    @SequenceGenerator(name = "weather_measurement_seq", sequenceName = "weather_measurement_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -45,6 +52,16 @@ public class WeatherMeasurement {
     @Column(name = "phenomenon")
     private String phenomenon;
 
+    /** True if the severe weather conditions were evaluated at ingest and stored in codeItems. **/
+    @Column(name = "classified")
+    private boolean classified;
+
+    @ManyToMany
+    @JoinTable(name = "weather_measurement_code_item",
+            joinColumns = @JoinColumn(name = "weather_measurement_id"),
+            inverseJoinColumns = @JoinColumn(name = "code_item"))
+    private List<CodeItem> codeItems;
+
     @Override
     public String toString() {
         return new StringBuilder().append("----- Weather Measurement -----\n")
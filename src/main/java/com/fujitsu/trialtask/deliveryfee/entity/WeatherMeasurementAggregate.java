@@ -0,0 +1,58 @@
+package com.fujitsu.trialtask.deliveryfee.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.MappedSuperclass;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+/**
+ * Weather measurements of a station over a period, rolled up from finer-grained rows by the retention job.
+ * Averages are weighted by measurement count. The phenomenon is the most frequent one of the period.
+ */
+@Getter
+@Setter
+@MappedSuperclass
+public abstract class WeatherMeasurementAggregate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "period_start")
+    private Timestamp periodStart;
+
+    @ManyToOne
+    @JoinColumn(name = "weather_station_wmo_code")
+    private WeatherStation weatherStation;
+
+    @Column(name = "measurement_count")
+    private int measurementCount;
+
+    @Column(name = "min_air_temperature")
+    private Float minAirTemperature;
+
+    @Column(name = "max_air_temperature")
+    private Float maxAirTemperature;
+
+    @Column(name = "avg_air_temperature")
+    private Float avgAirTemperature;
+
+    @Column(name = "min_wind_speed")
+    private Float minWindSpeed;
+
+    @Column(name = "max_wind_speed")
+    private Float maxWindSpeed;
+
+    @Column(name = "avg_wind_speed")
+    private Float avgWindSpeed;
+
+    @Column(name = "phenomenon")
+    private String phenomenon;
+}
@@ -0,0 +1,11 @@
+package com.fujitsu.trialtask.deliveryfee.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.NoArgsConstructor;
+
+@Entity
+@NoArgsConstructor
+@Table(name = "weather_measurement_hourly")
+public class WeatherMeasurementHourly extends WeatherMeasurementAggregate {
+}
@@ -0,0 +1,33 @@
+package com.fujitsu.trialtask.deliveryfee.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Points to the latest weather measurement of a station.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "weather_station_latest")
+public class WeatherStationLatest {
+    @Id
+    @Column(name = "weather_station_wmo_code")
+    private Integer WMOcode;
+
+    @NotNull
+    @ManyToOne
+    @JoinColumn(name = "weather_measurement_id")
+    private WeatherMeasurement weatherMeasurement;
+}
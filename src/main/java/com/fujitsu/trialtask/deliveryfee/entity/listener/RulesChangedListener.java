@@ -0,0 +1,49 @@
+package com.fujitsu.trialtask.deliveryfee.entity.listener;
+
+import com.fujitsu.trialtask.deliveryfee.event.RulesChangedEvent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Entity listener that announces changes to rule and reference tables, so compiled in-memory rules and the fee
+ * snapshot can be rebuilt.
+ */
+@RequiredArgsConstructor
+public class RulesChangedListener {
+    /** Bound to the transaction once its change has been announced. **/
+    private static final Object ANNOUNCED_KEY = new Object();
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        publishOncePerTransaction(eventPublisher, entity);
+    }
+
+    /**
+     * Publishes a RulesChangedEvent, at most once per transaction. Every event rebuilds all in-memory rules and
+     * the fee snapshot after the commit, so a transaction changing many rows rebuilds them only once.
+     */
+    static void publishOncePerTransaction(ApplicationEventPublisher eventPublisher, Object entity) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (TransactionSynchronizationManager.hasResource(ANNOUNCED_KEY)) {
+                return;
+            }
+            TransactionSynchronizationManager.bindResource(ANNOUNCED_KEY, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ANNOUNCED_KEY);
+                }
+            });
+        }
+        eventPublisher.publishEvent(new RulesChangedEvent(entity.getClass().getSimpleName()));
+    }
+}
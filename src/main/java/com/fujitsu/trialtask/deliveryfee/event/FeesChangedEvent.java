@@ -0,0 +1,13 @@
+package com.fujitsu.trialtask.deliveryfee.event;
+
+import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeResultDto;
+
+import java.util.List;
+
+/**
+ * Published after the fee snapshot has been rebuilt, if the outcome of any (city, vehicle) pair changed.
+ *
+ * @param changes new outcomes of the changed pairs
+ */
+public record FeesChangedEvent(List<DeliveryFeeResultDto> changes) {
+}
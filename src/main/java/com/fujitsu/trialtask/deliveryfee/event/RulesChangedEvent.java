@@ -0,0 +1,9 @@
+package com.fujitsu.trialtask.deliveryfee.event;
+
+/**
+ * Published when severe weather conditions, fees or work prohibitions have been changed.
+ *
+ * @param source name of the changed entity
+ */
+public record RulesChangedEvent(String source) {
+}
@@ -0,0 +1,12 @@
+package com.fujitsu.trialtask.deliveryfee.event;
+
+import java.sql.Timestamp;
+
+/**
+ * Published after new weather measurements have been stored.
+ *
+ * @param timestamp        observation timestamp of the stored measurements
+ * @param measurementCount number of stored measurements
+ */
+public record WeatherUpdatedEvent(Timestamp timestamp, int measurementCount) {
+}
@@ -0,0 +1,71 @@
+package com.fujitsu.trialtask.deliveryfee.metrics;
+
+import com.fujitsu.trialtask.deliveryfee.util.enums.RejectionReason;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Metrics of the delivery fee calculation: a timer per calculation stage and a counter per rejection reason.
+ * Meters are registered up front, so recording does not look them up.
+ */
+@Component
+public class DeliveryFeeMetrics {
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<RejectionReason, Counter> rejectionCounters = new EnumMap<>(RejectionReason.class);
+
+    public enum Stage {
+        /** Validating the ids and finding the WMO code of the city's weather station. **/
+        STATION_LOOKUP,
+        /** Finding the station's measurement and matching it against the severe weather conditions. **/
+        CLASSIFICATION,
+        PROHIBITION,
+        BASE_FEE,
+        EXTRA_FEE,
+        /** Answering from the fee snapshot, which replaces all other stages. **/
+        SNAPSHOT_LOOKUP,
+        /** Calculating with a single query, which replaces all stages but the snapshot lookup. **/
+        SINGLE_QUERY
+    }
+
+    public DeliveryFeeMetrics(MeterRegistry registry) {
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("delivery.fee.stage")
+                    .description("Time spent in a stage of the delivery fee calculation")
+                    .tag("stage", toTagValue(stage))
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        for (RejectionReason rejection : RejectionReason.values()) {
+            rejectionCounters.put(rejection, Counter.builder("delivery.fee.rejections")
+                    .description("Delivery fee requests answered with an error instead of a fee")
+                    .tag("reason", toTagValue(rejection))
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Runs a stage of the calculation and records its duration, also when it throws.
+     *
+     * @param stage stage
+     * @param step  the stage's work
+     * @return result of the stage
+     */
+    public <T> T time(Stage stage, Supplier<T> step) {
+        return stageTimers.get(stage).record(step);
+    }
+
+    public void recordRejection(RejectionReason rejection) {
+        rejectionCounters.get(rejection).increment();
+    }
+
+    private static String toTagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,100 @@
+package com.fujitsu.trialtask.deliveryfee.metrics;
+
+import com.fujitsu.trialtask.deliveryfee.dto.WeatherMeasurementDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of the weather ingest: its duration per outcome, the number of measurement rows written and the age
+ * of each station's latest measurement.
+ */
+@Component
+public class WeatherMetrics {
+    private final MeterRegistry registry;
+    private final Map<IngestOutcome, Timer> ingestTimers = new EnumMap<>(IngestOutcome.class);
+    private final Counter insertedRows;
+    private final Counter updatedRows;
+    /** Timestamp in milliseconds of each station's latest measurement, read by the station's age gauge. **/
+    private final Map<Integer, AtomicLong> latestTimestamps = new ConcurrentHashMap<>();
+
+    public enum IngestOutcome {
+        /** New measurements were stored. **/
+        STORED,
+        /** None of the providers had modified observations. **/
+        NOT_MODIFIED,
+        /** The observations had already been ingested. **/
+        UNCHANGED,
+        FAILED
+    }
+
+    public WeatherMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (IngestOutcome outcome : IngestOutcome.values()) {
+            ingestTimers.put(outcome, Timer.builder("weather.ingest")
+                    .description("Duration of a weather ingest, from fetching the providers to storing the measurements")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+        insertedRows = rowsCounter(registry, "inserted");
+        updatedRows = rowsCounter(registry, "updated");
+    }
+
+    public Timer.Sample startIngest() {
+        return Timer.start(registry);
+    }
+
+    public void stopIngest(Timer.Sample sample, IngestOutcome outcome) {
+        sample.stop(ingestTimers.get(outcome));
+    }
+
+    /**
+     * @param inserted number of measurement rows inserted by a committed ingest
+     * @param updated  number of existing measurement rows updated by a committed ingest
+     */
+    public void recordRowsWritten(int inserted, int updated) {
+        insertedRows.increment(inserted);
+        updatedRows.increment(updated);
+    }
+
+    /**
+     * Tracks the age of the station's latest measurement. The station's gauge is registered when the station
+     * is first seen; an older measurement than the one already tracked is ignored.
+     *
+     * @param measurement latest known measurement of a station
+     */
+    public void recordLatestMeasurement(WeatherMeasurementDto measurement) {
+        Integer WMOcode = measurement.getWeatherStation().getWMOcode();
+        long timestamp = measurement.getTimestamp().getTime();
+        latestTimestamps.computeIfAbsent(WMOcode,
+                        code -> registerAgeGauge(code, measurement.getWeatherStation().getName(), timestamp))
+                .accumulateAndGet(timestamp, Math::max);
+    }
+
+    private AtomicLong registerAgeGauge(Integer WMOcode, String stationName, long timestamp) {
+        AtomicLong latestTimestamp = new AtomicLong(timestamp);
+        Gauge.builder("weather.measurement.age", latestTimestamp,
+                        timestamp -> (System.currentTimeMillis() - timestamp.get()) / 1000.0)
+                .description("Age of the station's latest weather measurement")
+                .baseUnit("seconds")
+                .tag("station", String.valueOf(WMOcode))
+                .tag("name", stationName == null ? "" : stationName)
+                .register(registry);
+        return latestTimestamp;
+    }
+
+    private static Counter rowsCounter(MeterRegistry registry, String operation) {
+        return Counter.builder("weather.ingest.rows")
+                .description("Weather measurement rows written by committed ingests")
+                .tag("operation", operation)
+                .register(registry);
+    }
+}
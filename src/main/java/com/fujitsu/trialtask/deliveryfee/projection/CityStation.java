@@ -0,0 +1,7 @@
+package com.fujitsu.trialtask.deliveryfee.projection;
+
+/**
+ * A city's id and the WMO code of its weather station, without the station's other columns.
+ */
+public record CityStation(Long id, Integer WMOcode) {
+}
@@ -0,0 +1,37 @@
+package com.fujitsu.trialtask.deliveryfee.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Everything the fee of one (city, vehicle) pair depends on, read in a single row.
+ */
+public interface DeliveryFeeRow {
+    Boolean getVehicleExists();
+
+    Boolean getCityExists();
+
+    /**
+     * @return WMO code of the city's weather station, null if the city does not exist
+     */
+    Integer getWmoCode();
+
+    /**
+     * @return true if the city's station has a latest measurement
+     */
+    Boolean getWeatherAvailable();
+
+    /**
+     * @return regional base fee, null if the vehicle is not allowed in the city
+     */
+    BigDecimal getBaseFee();
+
+    /**
+     * @return sum of the vehicle's extra fees for the latest measurement's weather codes, zero if none apply
+     */
+    BigDecimal getExtraFee();
+
+    /**
+     * @return true if any of the latest measurement's weather codes prohibits the vehicle
+     */
+    Boolean getProhibited();
+}
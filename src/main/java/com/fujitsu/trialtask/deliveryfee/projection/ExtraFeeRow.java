@@ -0,0 +1,9 @@
+package com.fujitsu.trialtask.deliveryfee.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * An extra fee of a vehicle for a weather code, read by foreign key without loading the vehicle or the code item.
+ */
+public record ExtraFeeRow(Long vehicleId, String code, BigDecimal feeAmount) {
+}
@@ -0,0 +1,10 @@
+package com.fujitsu.trialtask.deliveryfee.projection;
+
+import java.sql.Timestamp;
+
+/**
+ * The readings of a measurement that severe weather conditions are matched against. For an hourly or daily
+ * aggregate, the start of the period and its average readings.
+ */
+public record MeasurementReading(Timestamp timestamp, Float airTemperature, Float windSpeed, String phenomenon) {
+}
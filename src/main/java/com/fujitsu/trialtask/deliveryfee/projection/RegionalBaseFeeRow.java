@@ -0,0 +1,9 @@
+package com.fujitsu.trialtask.deliveryfee.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * The base fee of a (city, vehicle) pair, read by foreign key without loading the city or the vehicle.
+ */
+public record RegionalBaseFeeRow(Long cityId, Long vehicleId, BigDecimal feeAmount) {
+}
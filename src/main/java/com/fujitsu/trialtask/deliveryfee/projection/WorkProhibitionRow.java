@@ -0,0 +1,7 @@
+package com.fujitsu.trialtask.deliveryfee.projection;
+
+/**
+ * A work prohibition of a vehicle for a weather code, read by foreign key without loading the vehicle or the code item.
+ */
+public record WorkProhibitionRow(Long vehicleId, String code) {
+}
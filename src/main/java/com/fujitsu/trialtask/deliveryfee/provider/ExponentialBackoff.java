@@ -0,0 +1,31 @@
+package com.fujitsu.trialtask.deliveryfee.provider;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Delays between retries that double with every attempt up to a maximum. Each delay is jittered between half and
+ * all of its exponential value, so that clients that failed together do not retry together.
+ *
+ * @param initial delay after the first attempt, before jitter
+ * @param max     upper bound of the delay, before jitter
+ */
+public record ExponentialBackoff(Duration initial, Duration max) {
+    public ExponentialBackoff {
+        if (initial.isNegative() || initial.isZero() || max.compareTo(initial) < 0) {
+            throw new IllegalArgumentException("Expected 0 < initial <= max but got " + initial + " and " + max);
+        }
+    }
+
+    /**
+     * @param attempt number of the attempt that failed, starting from 1
+     * @return delay before the next attempt
+     */
+    public Duration delay(int attempt) {
+        long maxMillis = max.toMillis();
+        long exponential = initial.toMillis() << Math.min(attempt - 1, 30);
+        long capped = exponential <= 0 || exponential > maxMillis ? maxMillis : exponential;
+        long half = capped / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(capped - half + 1));
+    }
+}
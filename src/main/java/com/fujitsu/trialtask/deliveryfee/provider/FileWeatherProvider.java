@@ -0,0 +1,54 @@
+package com.fujitsu.trialtask.deliveryfee.provider;
+
+import com.fujitsu.trialtask.deliveryfee.util.WeatherObservationParser;
+import com.fujitsu.trialtask.deliveryfee.util.exception.WeatherRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Reads observations in the ilmateenistus.ee XML format from a file or classpath resource.
+ * Meant for tests and local runs without network access.
+ */
+@Order(1)
+@Component
+@ConditionalOnProperty(name = "weather.provider.file.enabled", havingValue = "true")
+public class FileWeatherProvider implements WeatherProvider {
+    @Value("${weather.provider.file.location}")
+    private Resource location;
+    @Value("${weather.provider.file.timeout:PT5S}")
+    private Duration timeout;
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public WeatherObservation fetch(IntPredicate stationFilter) throws WeatherRequestException {
+        List<WeatherObservation.Reading> readings = new ArrayList<>();
+        try (InputStream input = location.getInputStream()) {
+            WeatherObservationParser.parse(input, stationFilter, (timeInSeconds, stationModel) ->
+                    readings.add(new WeatherObservation.Reading(new Timestamp(timeInSeconds * 1000), stationModel)));
+        } catch (IOException | XMLStreamException e) {
+            throw new WeatherRequestException("Weather observation could not be read from " + location, e);
+        }
+        return new WeatherObservation(readings);
+    }
+}
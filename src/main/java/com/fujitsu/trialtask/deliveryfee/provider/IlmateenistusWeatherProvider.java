@@ -0,0 +1,264 @@
+package com.fujitsu.trialtask.deliveryfee.provider;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fujitsu.trialtask.deliveryfee.model.WeatherObservationModel;
+import com.fujitsu.trialtask.deliveryfee.model.WeatherStationModel;
+import com.fujitsu.trialtask.deliveryfee.util.WeatherObservationParser;
+import com.fujitsu.trialtask.deliveryfee.util.exception.WeatherRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+/**
+ * Observations of the Estonian Environment Agency (ilmateenistus.ee).
+ * Requests are conditional on the validators of the last ingested response.
+ * <p>
+ * Requests are sent with a non-blocking client and every attempt has a request timeout. Failed attempts are retried
+ * with exponential backoff as long as the next attempt starts within the provider's timeout, and the provider's
+ * circuit breaker stops requests to an unavailable feed until its open duration has passed.
+ */
+@Slf4j
+@Order(0)
+@Component
+@ConditionalOnProperty(name = "weather.provider.ilmateenistus.enabled", havingValue = "true", matchIfMissing = true)
+public class IlmateenistusWeatherProvider implements WeatherProvider {
+    private final HttpClient httpClient;
+    private final CircuitBreaker circuitBreaker;
+    private final ObjectMapper xmlMapper = Jackson2ObjectMapperBuilder.xml().build();
+    @Value("${weather.service.request-url}")
+    private String weatherRequestUrl;
+    @Value("${weather.service.streaming-parser.enabled:false}")
+    private boolean streamingParserEnabled;
+    @Value("${weather.provider.ilmateenistus.timeout:PT2M}")
+    private Duration timeout;
+    @Value("${weather.provider.ilmateenistus.request-timeout:PT15S}")
+    private Duration requestTimeout;
+    @Value("${weather.provider.ilmateenistus.retry.initial-backoff:PT2S}")
+    private Duration initialBackoff;
+    @Value("${weather.provider.ilmateenistus.retry.max-backoff:PT30S}")
+    private Duration maxBackoff;
+
+    /** Validators of the last ingested response, sent with the next request. **/
+    private volatile String lastETag;
+    private volatile String lastModified;
+    /** Validators of the last fetched response, kept once its readings have been ingested. **/
+    private volatile String fetchedETag;
+    private volatile String fetchedLastModified;
+
+    public IlmateenistusWeatherProvider(
+            HttpClient httpClient,
+            @Value("${weather.provider.ilmateenistus.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${weather.provider.ilmateenistus.circuit-breaker.open-duration:PT1M}") Duration openDuration) {
+        this.httpClient = httpClient;
+        this.circuitBreaker = new CircuitBreaker(getName(), failureThreshold, openDuration);
+    }
+
+    @Override
+    public String getName() {
+        return "ilmateenistus";
+    }
+
+    /**
+     * @return time in which all attempts of a fetch have to start
+     */
+    @Override
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public CircuitBreaker.State getCircuitBreakerState() {
+        return circuitBreaker.getState();
+    }
+
+    @Override
+    public WeatherObservation fetch(IntPredicate stationFilter) throws WeatherRequestException {
+        try {
+            return fetchAsync(stationFilter, Runnable::run).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof WeatherRequestException requestException
+                    ? requestException
+                    : new WeatherRequestException("Weather observation could not be requested", e.getCause());
+        }
+    }
+
+    @Override
+    public CompletableFuture<WeatherObservation> fetchAsync(IntPredicate stationFilter, Executor executor) {
+        CompletableFuture<WeatherObservation> result = new CompletableFuture<>();
+        ExponentialBackoff backoff = new ExponentialBackoff(initialBackoff, maxBackoff);
+        attempt(stationFilter, executor, backoff, 1, System.nanoTime() + timeout.toNanos(), result);
+        return result;
+    }
+
+    @Override
+    public void onIngested() {
+        lastETag = fetchedETag;
+        lastModified = fetchedLastModified;
+    }
+
+    /**
+     * Sends one attempt and, if it fails and time is left, schedules the next one after a backoff delay.
+     * No thread waits during the request or the delay. Stops once the result has been completed by the caller.
+     */
+    private void attempt(IntPredicate stationFilter, Executor executor, ExponentialBackoff backoff, int attempt,
+                         long deadline, CompletableFuture<WeatherObservation> result) {
+        if (result.isDone()) {
+            return;
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            result.completeExceptionally(new WeatherRequestException(
+                    "Circuit breaker of " + getName() + " is open, weather observation was not requested"));
+            return;
+        }
+        long remaining = deadline - System.nanoTime();
+        Duration attemptTimeout = remaining < requestTimeout.toNanos() ? Duration.ofNanos(Math.max(remaining, 1))
+                : requestTimeout;
+        send(stationFilter, executor, attemptTimeout).whenComplete((observation, failure) -> {
+            if (failure == null) {
+                circuitBreaker.onSuccess();
+                result.complete(observation);
+                return;
+            }
+            circuitBreaker.onFailure();
+            Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+            Duration delay = backoff.delay(attempt);
+            if (!isRetryable(cause) || System.nanoTime() + delay.toNanos() >= deadline) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            log.warn("Weather request to {} failed on attempt {}, retrying in {} ms: {}",
+                    getName(), attempt, delay.toMillis(), cause.toString());
+            CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS).execute(() ->
+                    attempt(stationFilter, executor, backoff, attempt + 1, deadline, result));
+        });
+    }
+
+    private CompletableFuture<WeatherObservation> send(IntPredicate stationFilter, Executor executor,
+                                                       Duration attemptTimeout) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(weatherRequestUrl))
+                .timeout(attemptTimeout)
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_XML_VALUE)
+                .GET();
+        if (lastETag != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, lastETag);
+        }
+        if (lastModified != null) {
+            request.header(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+        }
+        return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofInputStream())
+                .thenApplyAsync(response -> toObservation(response, stationFilter), executor);
+    }
+
+    /**
+     * Parses the body while it is received, so the feed is never held in memory as a whole. The status is checked
+     * first: the body of a not modified or failed response is closed without being read.
+     */
+    private WeatherObservation toObservation(HttpResponse<InputStream> response, IntPredicate stationFilter) {
+        WeatherObservation observation;
+        try (InputStream body = response.body()) {
+            if (response.statusCode() == HttpStatus.NOT_MODIFIED.value()) {
+                return WeatherObservation.notModified();
+            }
+            if (response.statusCode() != HttpStatus.OK.value()) {
+                throw new WeatherStatusException(response.statusCode());
+            }
+            observation = streamingParserEnabled
+                    ? parseReadings(body, stationFilter)
+                    : mapObservation(body, stationFilter);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Weather observation could not be read", e);
+        }
+        fetchedETag = response.headers().firstValue(HttpHeaders.ETAG).orElse(null);
+        fetchedLastModified = response.headers().firstValue(HttpHeaders.LAST_MODIFIED).orElse(null);
+        return observation;
+    }
+
+    /**
+     * Maps the response body to the observation model and then to readings.
+     */
+    private WeatherObservation mapObservation(InputStream body, IntPredicate stationFilter) throws IOException {
+        WeatherObservationModel observation;
+        try {
+            observation = xmlMapper.readValue(body, WeatherObservationModel.class);
+        } catch (JsonProcessingException e) {
+            throw new WeatherRequestException("Weather observation could not be parsed", e);
+        }
+        if (observation == null) {
+            throw new WeatherRequestException("Weather observation from request is null at " + LocalDateTime.now());
+        }
+
+        // Timestamp constructor requires time in milliseconds.
+        Timestamp timestamp = new Timestamp(observation.getTimeInSeconds() * 1000);
+        List<WeatherObservation.Reading> readings = new ArrayList<>();
+        for (WeatherStationModel stationModel : observation.getStations()) {
+            if (stationModel.getWMOcode() != null && stationFilter.test(stationModel.getWMOcode())) {
+                readings.add(new WeatherObservation.Reading(timestamp, stationModel));
+            }
+        }
+        return new WeatherObservation(readings);
+    }
+
+    /**
+     * Parses the readings of the wanted stations straight from the response body, without the observation model.
+     */
+    private WeatherObservation parseReadings(InputStream body, IntPredicate stationFilter) {
+        List<WeatherObservation.Reading> readings = new ArrayList<>();
+        try {
+            WeatherObservationParser.parse(body, stationFilter, (timeInSeconds, stationModel) ->
+                    readings.add(new WeatherObservation.Reading(new Timestamp(timeInSeconds * 1000), stationModel)));
+        } catch (XMLStreamException e) {
+            throw new WeatherRequestException("Weather observation could not be parsed", e);
+        }
+        return new WeatherObservation(readings);
+    }
+
+    /**
+     * Connection failures, including while the body is read, timeouts, server errors and rate limiting are retried.
+     * Responses that could not be parsed and other statuses would fail again.
+     */
+    private static boolean isRetryable(Throwable failure) {
+        if (failure instanceof WeatherStatusException statusException) {
+            int status = statusException.getStatus();
+            return status >= 500 || status == HttpStatus.TOO_MANY_REQUESTS.value();
+        }
+        return failure instanceof IOException || failure instanceof UncheckedIOException;
+    }
+
+    private static final class WeatherStatusException extends WeatherRequestException {
+        private final int status;
+
+        WeatherStatusException(int status) {
+            super("Weather observation request failed with HTTP status " + status);
+            this.status = status;
+        }
+
+        int getStatus() {
+            return status;
+        }
+    }
+}
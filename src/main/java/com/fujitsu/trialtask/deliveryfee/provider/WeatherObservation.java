@@ -0,0 +1,29 @@
+package com.fujitsu.trialtask.deliveryfee.provider;
+
+import com.fujitsu.trialtask.deliveryfee.model.WeatherStationModel;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Readings fetched from a weather provider. Readings are null if the provider's data has not been modified
+ * since the last fetch.
+ */
+public record WeatherObservation(List<Reading> readings) {
+    private static final WeatherObservation NOT_MODIFIED = new WeatherObservation(null);
+
+    public static WeatherObservation notModified() {
+        return NOT_MODIFIED;
+    }
+
+    public boolean isModified() {
+        return readings != null;
+    }
+
+    /**
+     * @param timestamp time of the reading
+     * @param station   station readings
+     */
+    public record Reading(Timestamp timestamp, WeatherStationModel station) {
+    }
+}
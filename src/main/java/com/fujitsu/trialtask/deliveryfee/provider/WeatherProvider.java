@@ -0,0 +1,46 @@
+package com.fujitsu.trialtask.deliveryfee.provider;
+
+import com.fujitsu.trialtask.deliveryfee.util.exception.WeatherRequestException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.IntPredicate;
+
+/**
+ * Source of weather observations. Providers are fetched concurrently on every weather update and their readings
+ * are merged by WMO code, the most recent reading of a station wins.
+ */
+public interface WeatherProvider {
+    String getName();
+
+    /**
+     * @return time after which the provider's fetch is abandoned and its readings are left out of the update
+     */
+    Duration getTimeout();
+
+    /**
+     * @param stationFilter decides by WMO code which stations are wanted
+     * @return readings of the wanted stations, or WeatherObservation.notModified()
+     * @throws WeatherRequestException observation could not be fetched
+     */
+    WeatherObservation fetch(IntPredicate stationFilter) throws WeatherRequestException;
+
+    /**
+     * Fetches without blocking the caller. Runs fetch on the executor unless the provider has a non-blocking client.
+     * Completing the returned future, e.g. when it times out, abandons the fetch.
+     *
+     * @param stationFilter decides by WMO code which stations are wanted
+     * @param executor      runs blocking work of the fetch
+     * @return readings of the wanted stations, or WeatherObservation.notModified()
+     */
+    default CompletableFuture<WeatherObservation> fetchAsync(IntPredicate stationFilter, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> fetch(stationFilter), executor);
+    }
+
+    /**
+     * Called once the readings of the last fetch have been stored.
+     */
+    default void onIngested() {
+    }
+}
@@ -1,10 +1,41 @@
 package com.fujitsu.trialtask.deliveryfee.repository;
 
 import com.fujitsu.trialtask.deliveryfee.entity.City;
+import com.fujitsu.trialtask.deliveryfee.projection.CityStation;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface CityRepository extends JpaRepository<City, Long> {
+    /**
+     * The station's WMO code is the city's foreign key column, so the station is not joined.
+     */
+    @Query("""
+            SELECT new com.fujitsu.trialtask.deliveryfee.projection.CityStation(c.id, c.weatherStation.WMOcode)
+            FROM City c
+            WHERE c.id = :id
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<CityStation> findStationById(@Param("id") Long id);
+
+    @Query("""
+            SELECT new com.fujitsu.trialtask.deliveryfee.projection.CityStation(c.id, c.weatherStation.WMOcode)
+            FROM City c
+            WHERE c.id IN :ids
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<CityStation> findStationsByIdIn(@Param("ids") Collection<Long> ids);
 
+    @Query("SELECT new com.fujitsu.trialtask.deliveryfee.projection.CityStation(c.id, c.weatherStation.WMOcode) FROM City c")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<CityStation> findAllStations();
 }
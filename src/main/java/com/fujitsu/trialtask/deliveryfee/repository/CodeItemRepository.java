@@ -1,12 +1,20 @@
 package com.fujitsu.trialtask.deliveryfee.repository;
 
 import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CodeItemRepository extends JpaRepository<CodeItem, String> {
     Optional<CodeItem> findByCode(String code);
+
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<CodeItem> findAll();
 }
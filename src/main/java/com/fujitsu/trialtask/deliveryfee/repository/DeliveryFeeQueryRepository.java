@@ -0,0 +1,85 @@
+package com.fujitsu.trialtask.deliveryfee.repository;
+
+import com.fujitsu.trialtask.deliveryfee.entity.RegionalBaseFee;
+import com.fujitsu.trialtask.deliveryfee.projection.DeliveryFeeRow;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Calculates the inputs of a delivery fee in the database, in one round trip.
+ */
+@Repository
+public interface DeliveryFeeQueryRepository extends org.springframework.data.repository.Repository<RegionalBaseFee, Long> {
+    /**
+     * Joins the city, its station's latest measurement, the regional base fee, the matching severe weather
+     * conditions, the work prohibitions and the extra fees of a (city, vehicle) pair into one row.
+     * <p>
+     * A measurement that was classified at ingest is matched by its stored code items, like the in-memory path.
+     * Other measurements are matched against the current conditions with the same rules as the in-memory
+     * engine: ranges with both bounds are inclusive, ranges with one bound are exclusive, and phenomena match
+     * case-insensitively anywhere in the measurement's phenomenon.
+     *
+     * @param cityId    city id
+     * @param vehicleId vehicle id
+     * @return single row, with flags for an unknown city or vehicle and missing weather data
+     */
+    @Query(nativeQuery = true, value = """
+            WITH measurement AS (
+                SELECT wm.*
+                FROM city c
+                JOIN weather_station_latest wsl ON wsl.weather_station_wmo_code = c.weather_station_wmo_code
+                JOIN weather_measurement wm ON wm.id = wsl.weather_measurement_id
+                WHERE c.id = :cityId
+            ),
+            reading AS (
+                SELECT 'AT' AS code_class, m.air_temperature AS reading_value FROM measurement m WHERE NOT m.classified
+                UNION ALL
+                SELECT 'WS' AS code_class, m.wind_speed AS reading_value FROM measurement m WHERE NOT m.classified
+            ),
+            matched_code AS (
+                SELECT mci.code_item AS code
+                FROM measurement m
+                JOIN weather_measurement_code_item mci ON mci.weather_measurement_id = m.id
+                WHERE m.classified
+                UNION
+                SELECT swc.code_item AS code
+                FROM reading r
+                JOIN code_item ci ON ci.code_class = r.code_class
+                JOIN severe_weather_condition swc ON swc.code_item = ci.code
+                WHERE (swc.min_measurement IS NOT NULL AND swc.max_measurement IS NOT NULL
+                        AND r.reading_value BETWEEN swc.min_measurement AND swc.max_measurement)
+                   OR (swc.min_measurement IS NOT NULL AND swc.max_measurement IS NULL AND r.reading_value > swc.min_measurement)
+                   OR (swc.min_measurement IS NULL AND swc.max_measurement IS NOT NULL AND r.reading_value < swc.max_measurement)
+                UNION
+                SELECT swc.code_item AS code
+                FROM measurement m
+                CROSS JOIN severe_weather_condition swc
+                JOIN code_item ci ON ci.code = swc.code_item
+                JOIN weather_phenomenon wp ON wp.severe_weather_condition_id = swc.id
+                WHERE NOT m.classified
+                AND ci.code_class = 'WP'
+                AND LOCATE(LOWER(wp.phenomenon), LOWER(m.phenomenon)) > 0
+            )
+            SELECT
+                v.id IS NOT NULL AS "vehicleExists",
+                c.id IS NOT NULL AS "cityExists",
+                c.weather_station_wmo_code AS "wmoCode",
+                m.id IS NOT NULL AS "weatherAvailable",
+                rbf.fee_amount AS "baseFee",
+                (SELECT COALESCE(SUM(ef.fee_amount), 0)
+                 FROM extra_fee ef
+                 JOIN matched_code mc ON mc.code = ef.code_item
+                 WHERE ef.vehicle_id = v.id) AS "extraFee",
+                EXISTS (SELECT 1
+                        FROM work_prohibition wpr
+                        JOIN matched_code mc ON mc.code = wpr.code_item
+                        WHERE wpr.vehicle_id = v.id) AS "prohibited"
+            FROM (SELECT CAST(:cityId AS BIGINT) AS city_id, CAST(:vehicleId AS BIGINT) AS vehicle_id) requested
+            LEFT JOIN vehicle v ON v.id = requested.vehicle_id
+            LEFT JOIN city c ON c.id = requested.city_id
+            LEFT JOIN measurement m ON m.weather_station_wmo_code = c.weather_station_wmo_code
+            LEFT JOIN regional_base_fee rbf ON rbf.city_id = c.id AND rbf.vehicle_id = v.id
+            """)
+    DeliveryFeeRow findDeliveryFeeRow(@Param("cityId") Long cityId, @Param("vehicleId") Long vehicleId);
+}
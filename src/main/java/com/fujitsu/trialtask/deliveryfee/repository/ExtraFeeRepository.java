@@ -1,13 +1,22 @@
 package com.fujitsu.trialtask.deliveryfee.repository;
 
-import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
 import com.fujitsu.trialtask.deliveryfee.entity.ExtraFee;
+import com.fujitsu.trialtask.deliveryfee.projection.ExtraFeeRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface ExtraFeeRepository extends JpaRepository<ExtraFee, Long> {
-    List<ExtraFee> findAllByVehicleIdAndCodeItemIn(Long vehicleId, List<CodeItem> codes);
+    @Query("""
+            SELECT new com.fujitsu.trialtask.deliveryfee.projection.ExtraFeeRow(f.vehicle.id, f.codeItem.code, f.feeAmount)
+            FROM ExtraFee f
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<ExtraFeeRow> findAllRows();
 }
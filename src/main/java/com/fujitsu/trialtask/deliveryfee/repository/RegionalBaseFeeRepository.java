@@ -1,12 +1,49 @@
 package com.fujitsu.trialtask.deliveryfee.repository;
 
 import com.fujitsu.trialtask.deliveryfee.entity.RegionalBaseFee;
+import com.fujitsu.trialtask.deliveryfee.projection.RegionalBaseFeeRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RegionalBaseFeeRepository extends JpaRepository<RegionalBaseFee, Long> {
-    Optional<RegionalBaseFee> findByCityIdAndVehicleId(Long cityId, Long vehicleId);
+    @Query("""
+            SELECT new com.fujitsu.trialtask.deliveryfee.projection.RegionalBaseFeeRow(f.city.id, f.vehicle.id, f.feeAmount)
+            FROM RegionalBaseFee f
+            WHERE f.city.id = :cityId
+            AND f.vehicle.id = :vehicleId
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<RegionalBaseFeeRow> findRowByCityIdAndVehicleId(
+            @Param("cityId") Long cityId,
+            @Param("vehicleId") Long vehicleId
+    );
+
+    @Query("""
+            SELECT new com.fujitsu.trialtask.deliveryfee.projection.RegionalBaseFeeRow(f.city.id, f.vehicle.id, f.feeAmount)
+            FROM RegionalBaseFee f
+            WHERE f.city.id IN :cityIds
+            AND f.vehicle.id IN :vehicleIds
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<RegionalBaseFeeRow> findRowsByCityIdInAndVehicleIdIn(
+            @Param("cityIds") Collection<Long> cityIds,
+            @Param("vehicleIds") Collection<Long> vehicleIds
+    );
+
+    @Query("""
+            SELECT new com.fujitsu.trialtask.deliveryfee.projection.RegionalBaseFeeRow(f.city.id, f.vehicle.id, f.feeAmount)
+            FROM RegionalBaseFee f
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<RegionalBaseFeeRow> findAllRows();
 }
@@ -0,0 +1,19 @@
+package com.fujitsu.trialtask.deliveryfee.repository;
+
+import com.fujitsu.trialtask.deliveryfee.entity.WeatherMeasurement;
+
+import java.util.List;
+
+/**
+ * Bulk writes of weather measurements that are sent to the database as JDBC batches.
+ */
+public interface WeatherMeasurementBulkRepository {
+    /**
+     * Persists new measurements and merges existing ones, flushing after every JDBC batch.
+     * Measurements stay managed by the persistence context.
+     *
+     * @param measurements measurements to save
+     * @return saved measurements, in the given order
+     */
+    List<WeatherMeasurement> saveAllInBatches(List<WeatherMeasurement> measurements);
+}
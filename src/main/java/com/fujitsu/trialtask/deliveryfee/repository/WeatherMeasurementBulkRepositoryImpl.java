@@ -0,0 +1,36 @@
+package com.fujitsu.trialtask.deliveryfee.repository;
+
+import com.fujitsu.trialtask.deliveryfee.entity.WeatherMeasurement;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class WeatherMeasurementBulkRepositoryImpl implements WeatherMeasurementBulkRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Override
+    @Transactional
+    public List<WeatherMeasurement> saveAllInBatches(List<WeatherMeasurement> measurements) {
+        List<WeatherMeasurement> saved = new ArrayList<>(measurements.size());
+        for (WeatherMeasurement measurement : measurements) {
+            if (measurement.getId() == null) {
+                entityManager.persist(measurement);
+                saved.add(measurement);
+            } else {
+                saved.add(entityManager.merge(measurement));
+            }
+            if (saved.size() % batchSize == 0) {
+                entityManager.flush();
+            }
+        }
+        entityManager.flush();
+        return saved;
+    }
+}
@@ -0,0 +1,31 @@
+package com.fujitsu.trialtask.deliveryfee.repository;
+
+import com.fujitsu.trialtask.deliveryfee.entity.WeatherMeasurementDaily;
+import com.fujitsu.trialtask.deliveryfee.projection.MeasurementReading;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WeatherMeasurementDailyRepository extends JpaRepository<WeatherMeasurementDaily, Long> {
+    /**
+     * Floor lookup of the average readings of the station's day at given time.
+     */
+    @Query("""
+            SELECT new com.fujitsu.trialtask.deliveryfee.projection.MeasurementReading(
+                a.periodStart, a.avgAirTemperature, a.avgWindSpeed, a.phenomenon)
+            FROM WeatherMeasurementDaily a
+            WHERE a.weatherStation.WMOcode = :WMOcode
+            AND a.periodStart <= :at
+            ORDER BY a.periodStart DESC
+            LIMIT 1
+            """)
+    Optional<MeasurementReading> findReadingAt(@Param("WMOcode") Integer WMOcode, @Param("at") Timestamp at);
+
+    List<WeatherMeasurementDaily> findAllByPeriodStartGreaterThanEqualAndPeriodStartLessThan(Timestamp from, Timestamp to);
+}
@@ -0,0 +1,40 @@
+package com.fujitsu.trialtask.deliveryfee.repository;
+
+import com.fujitsu.trialtask.deliveryfee.entity.WeatherMeasurementHourly;
+import com.fujitsu.trialtask.deliveryfee.projection.MeasurementReading;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WeatherMeasurementHourlyRepository extends JpaRepository<WeatherMeasurementHourly, Long> {
+    /**
+     * Floor lookup of the average readings of the station's hour at given time.
+     */
+    @Query("""
+            SELECT new com.fujitsu.trialtask.deliveryfee.projection.MeasurementReading(
+                a.periodStart, a.avgAirTemperature, a.avgWindSpeed, a.phenomenon)
+            FROM WeatherMeasurementHourly a
+            WHERE a.weatherStation.WMOcode = :WMOcode
+            AND a.periodStart <= :at
+            ORDER BY a.periodStart DESC
+            LIMIT 1
+            """)
+    Optional<MeasurementReading> findReadingAt(@Param("WMOcode") Integer WMOcode, @Param("at") Timestamp at);
+
+    List<WeatherMeasurementHourly> findAllByPeriodStartGreaterThanEqualAndPeriodStartLessThan(Timestamp from, Timestamp to);
+
+    @Query("SELECT MIN(a.periodStart) FROM WeatherMeasurementHourly a WHERE a.periodStart < :before")
+    Timestamp findOldestPeriodStartBefore(@Param("before") Timestamp before);
+
+    @Modifying
+    @Query("DELETE FROM WeatherMeasurementHourly a WHERE a.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -1,12 +1,70 @@
 package com.fujitsu.trialtask.deliveryfee.repository;
 
 import com.fujitsu.trialtask.deliveryfee.entity.WeatherMeasurement;
+import com.fujitsu.trialtask.deliveryfee.projection.MeasurementReading;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface WeatherMeasurementRepository extends JpaRepository<WeatherMeasurement, Long> {
-    Optional<WeatherMeasurement> findTopByWeatherStationWMOcodeOrderByTimestampDesc(Integer WMOcode);
+public interface WeatherMeasurementRepository extends JpaRepository<WeatherMeasurement, Long>, WeatherMeasurementBulkRepository {
+    /**
+     * Floor lookup of the readings of the station's measurement at given time, served by the (station, timestamp) index.
+     */
+    @Query("""
+            SELECT new com.fujitsu.trialtask.deliveryfee.projection.MeasurementReading(
+                m.timestamp, m.airTemperature, m.windSpeed, m.phenomenon)
+            FROM WeatherMeasurement m
+            WHERE m.weatherStation.WMOcode = :WMOcode
+            AND m.timestamp <= :at
+            ORDER BY m.timestamp DESC
+            LIMIT 1
+            """)
+    Optional<MeasurementReading> findReadingAt(@Param("WMOcode") Integer WMOcode, @Param("at") Timestamp at);
+
+    List<WeatherMeasurement> findAllByWeatherStationWMOcodeInAndTimestampIn(Collection<Integer> WMOcodes, Collection<Timestamp> timestamps);
+
+    /**
+     * Oldest timestamp before given time, leaving out the stations' latest measurements.
+     */
+    @Query("""
+            SELECT MIN(m.timestamp) FROM WeatherMeasurement m
+            WHERE m.timestamp < :before
+            AND m.id NOT IN (SELECT l.weatherMeasurement.id FROM WeatherStationLatest l)
+            """)
+    Timestamp findOldestTimestampBefore(@Param("before") Timestamp before);
+
+    /**
+     * Measurements taken in [from, to), leaving out the stations' latest measurements.
+     */
+    @Query("""
+            SELECT m FROM WeatherMeasurement m
+            JOIN FETCH m.weatherStation
+            WHERE m.timestamp >= :from
+            AND m.timestamp < :to
+            AND m.id NOT IN (SELECT l.weatherMeasurement.id FROM WeatherStationLatest l)
+            """)
+    List<WeatherMeasurement> findAllNotLatestBetween(@Param("from") Timestamp from, @Param("to") Timestamp to);
+
+    /**
+     * Declares the table it writes, otherwise Hibernate would invalidate the whole second-level cache.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM weather_measurement_code_item WHERE weather_measurement_id IN :ids", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "weather_measurement_code_item"))
+    int deleteCodeItemsByMeasurementIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM WeatherMeasurement m WHERE m.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,35 @@
+package com.fujitsu.trialtask.deliveryfee.repository;
+
+import com.fujitsu.trialtask.deliveryfee.entity.WeatherStationLatest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WeatherStationLatestRepository extends JpaRepository<WeatherStationLatest, Integer> {
+    /**
+     * Fetches the latest measurement with its station and code items, so it can be mapped outside a transaction.
+     */
+    @Query("""
+            SELECT l FROM WeatherStationLatest l
+            JOIN FETCH l.weatherMeasurement m
+            JOIN FETCH m.weatherStation
+            LEFT JOIN FETCH m.codeItems
+            WHERE l.WMOcode = :WMOcode
+            """)
+    Optional<WeatherStationLatest> findWithMeasurementById(@Param("WMOcode") Integer WMOcode);
+
+    @Query("""
+            SELECT DISTINCT l FROM WeatherStationLatest l
+            JOIN FETCH l.weatherMeasurement m
+            JOIN FETCH m.weatherStation
+            LEFT JOIN FETCH m.codeItems
+            WHERE l.WMOcode IN :WMOcodes
+            """)
+    List<WeatherStationLatest> findAllWithMeasurementByIdIn(@Param("WMOcodes") Collection<Integer> WMOcodes);
+}
@@ -1,14 +1,22 @@
 package com.fujitsu.trialtask.deliveryfee.repository;
 
-import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
 import com.fujitsu.trialtask.deliveryfee.entity.WorkProhibition;
+import com.fujitsu.trialtask.deliveryfee.projection.WorkProhibitionRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface WorkProhibitionRepository extends JpaRepository<WorkProhibition, Long> {
-    Optional<WorkProhibition> findByVehicleIdAndCodeItemIn(Long vehicleId, List<CodeItem> codes);
+    @Query("""
+            SELECT new com.fujitsu.trialtask.deliveryfee.projection.WorkProhibitionRow(p.vehicle.id, p.codeItem.code)
+            FROM WorkProhibition p
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<WorkProhibitionRow> findAllRows();
 }
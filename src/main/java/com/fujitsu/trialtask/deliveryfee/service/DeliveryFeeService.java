@@ -1,20 +1,52 @@
 package com.fujitsu.trialtask.deliveryfee.service;
 
 import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeDto;
+import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeOutcome;
+import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeRequestDto;
+import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeResultDto;
 import com.fujitsu.trialtask.deliveryfee.dto.WeatherMeasurementDto;
-import com.fujitsu.trialtask.deliveryfee.entity.City;
+import com.fujitsu.trialtask.deliveryfee.engine.FeeSnapshot;
 import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
-import com.fujitsu.trialtask.deliveryfee.entity.ExtraFee;
+import com.fujitsu.trialtask.deliveryfee.event.FeesChangedEvent;
+import com.fujitsu.trialtask.deliveryfee.event.RulesChangedEvent;
+import com.fujitsu.trialtask.deliveryfee.event.WeatherUpdatedEvent;
+import com.fujitsu.trialtask.deliveryfee.metrics.DeliveryFeeMetrics;
+import com.fujitsu.trialtask.deliveryfee.metrics.DeliveryFeeMetrics.Stage;
+import com.fujitsu.trialtask.deliveryfee.projection.CityStation;
+import com.fujitsu.trialtask.deliveryfee.projection.DeliveryFeeRow;
+import com.fujitsu.trialtask.deliveryfee.projection.MeasurementReading;
+import com.fujitsu.trialtask.deliveryfee.projection.RegionalBaseFeeRow;
 import com.fujitsu.trialtask.deliveryfee.repository.CityRepository;
+import com.fujitsu.trialtask.deliveryfee.repository.DeliveryFeeQueryRepository;
 import com.fujitsu.trialtask.deliveryfee.repository.VehicleRepository;
+import com.fujitsu.trialtask.deliveryfee.util.MoneyUtil;
+import com.fujitsu.trialtask.deliveryfee.util.enums.RejectionReason;
 import com.fujitsu.trialtask.deliveryfee.util.exception.DeliveryFeeException;
 import com.fujitsu.trialtask.deliveryfee.util.exception.WeatherDataException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class DeliveryFeeService {
@@ -25,10 +57,27 @@ public class DeliveryFeeService {
     private final WorkProhibitionService prohibitionService;
     private final RegionalBaseFeeService baseFeeService;
     private final ExtraFeeService extraFeeService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DeliveryFeeMetrics metrics;
+    private final DeliveryFeeQueryRepository feeQueryRepository;
+    @Value("${delivery.fee.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+    @Value("${delivery.fee.single-query.enabled:false}")
+    private boolean singleQueryEnabled;
+
+    /** Latest fee snapshot, replaced as a whole after every weather update. Null until the first build. **/
+    private volatile FeeSnapshot snapshot;
+    /** Incremented on every rule change. Starts from the startup time, so versions are not reused after a restart. **/
+    private final AtomicLong rulesVersion = new AtomicLong(System.currentTimeMillis());
+    /** A lock rather than synchronized, so a virtual thread rebuilding the snapshot does not pin its carrier. **/
+    private final ReentrantLock refreshLock = new ReentrantLock();
 
     /**
      * Validates weather conditions for given vehicle. Calculates the base fee, extra fee and total fee for delivery
      * based on city and vehicle.
+     * Answered from the in-memory fee snapshot when one is available, otherwise from the database: with a single
+     * query if {@code delivery.fee.single-query.enabled} is set, e.g. when the snapshot and caches are disabled
+     * or still cold, or with lookups that are served from the caches once they are warm.
      *
      * @param cityId    vehicle id
      * @param vehicleId city id
@@ -37,43 +86,414 @@ public class DeliveryFeeService {
      * @throws WeatherDataException Weather data for the city's station is not available in the database
      */
     public DeliveryFeeDto getDeliveryFee(Long cityId, Long vehicleId) throws DeliveryFeeException, WeatherDataException {
-        if (!vehicleRepository.existsById(vehicleId)) {
-            throw new DeliveryFeeException("Invalid vehicle ID");
+        return getDeliveryFeeOutcome(cityId, vehicleId).orElseThrow();
+    }
+
+    /**
+     * Like {@link #getDeliveryFee(Long, Long)}, but returns a rejection as the outcome instead of throwing it.
+     *
+     * @param cityId    city id
+     * @param vehicleId vehicle id
+     * @return the fee, or the reason the request was rejected
+     */
+    public DeliveryFeeOutcome getDeliveryFeeOutcome(Long cityId, Long vehicleId) {
+        FeeSnapshot currentSnapshot = snapshot;
+        if (currentSnapshot != null) {
+            return countRejection(metrics.time(Stage.SNAPSHOT_LOOKUP,
+                    () -> getOutcomeFromSnapshot(currentSnapshot, cityId, vehicleId)));
+        }
+        if (singleQueryEnabled) {
+            return countRejection(metrics.time(Stage.SINGLE_QUERY,
+                    () -> getOutcomeWithSingleQuery(cityId, vehicleId)));
+        }
+        return countRejection(getOutcome(cityId, vehicleId, WMOcode -> weatherConditionService
+                .getCodeItemsFromWeatherMeasurementDto(weatherService.getLatestMeasurementFromStation(WMOcode))));
+    }
+
+    /**
+     * The entity tag of the current delivery fee of a pair, for conditional requests. It is derived from the
+     * timestamp of the city's latest measurement and the rules version, so it is available without calculating the fee.
+     *
+     * @param cityId    city id
+     * @param vehicleId vehicle id
+     * @return quoted entity tag, or empty if there is no fee snapshot or it has no weather data for the city
+     */
+    public Optional<String> getDeliveryFeeETag(Long cityId, Long vehicleId) {
+        FeeSnapshot currentSnapshot = snapshot;
+        return currentSnapshot == null ? Optional.empty() : currentSnapshot.getETag(cityId, vehicleId);
+    }
+
+    /**
+     * Calculates the delivery fee as it was at given time, using the weather measurement that was in effect then.
+     * Severe weather conditions, fee and prohibition rules are the current ones.
+     *
+     * @param cityId    city id
+     * @param vehicleId vehicle id
+     * @param at        point in time
+     * @return DeliveryFeeDto(cityId, vehicleId, baseFee, extraFee, totalFee)
+     * @throws DeliveryFeeException Invalid city ID | Invalid vehicle ID | Unfit weather conditions for vehicle
+     * @throws WeatherDataException No weather data for the city's station at that time
+     */
+    public DeliveryFeeDto getDeliveryFeeAt(Long cityId, Long vehicleId, Timestamp at)
+            throws DeliveryFeeException, WeatherDataException {
+        return getDeliveryFeeOutcomeAt(cityId, vehicleId, at).orElseThrow();
+    }
+
+    /**
+     * Like {@link #getDeliveryFeeAt(Long, Long, Timestamp)}, but returns a rejection as the outcome instead of throwing it.
+     *
+     * @param cityId    city id
+     * @param vehicleId vehicle id
+     * @param at        point in time
+     * @return the fee, or the reason the request was rejected
+     */
+    public DeliveryFeeOutcome getDeliveryFeeOutcomeAt(Long cityId, Long vehicleId, Timestamp at) {
+        return countRejection(getOutcome(cityId, vehicleId, WMOcode -> {
+            MeasurementReading reading = weatherService.getReadingFromStationAt(WMOcode, at);
+            return weatherConditionService.classify(reading.airTemperature(), reading.windSpeed(), reading.phenomenon());
+        }));
+    }
+
+    /**
+     * Calculates the fee from the database. The id lookups and the weather lookup report rejections with stackless
+     * exceptions, which are turned into the outcome here.
+     */
+    private DeliveryFeeOutcome getOutcome(Long cityId, Long vehicleId,
+                                          Function<Integer, List<CodeItem>> weatherCodesLookup) {
+        try {
+            return calculateOutcome(cityId, vehicleId, weatherCodesLookup);
+        } catch (DeliveryFeeException e) {
+            return DeliveryFeeOutcome.rejected(e.getReason());
+        } catch (WeatherDataException e) {
+            return DeliveryFeeOutcome.weatherUnavailable(e.getWMOcode());
+        }
+    }
+
+    /**
+     * Calculates the fee from the database, timing each stage. Only the columns the calculation needs are read,
+     * as projections rather than managed entities.
+     *
+     * @param weatherCodesLookup finds the weather codes of a station by its WMO code
+     */
+    private DeliveryFeeOutcome calculateOutcome(Long cityId, Long vehicleId,
+                                                Function<Integer, List<CodeItem>> weatherCodesLookup)
+            throws DeliveryFeeException, WeatherDataException {
+        Integer WMOcode = metrics.time(Stage.STATION_LOOKUP, () -> {
+            if (vehicleId == null || !vehicleRepository.existsById(vehicleId)) {
+                throw DeliveryFeeException.of(RejectionReason.INVALID_VEHICLE);
+            }
+            if (cityId == null) {
+                throw DeliveryFeeException.of(RejectionReason.INVALID_CITY);
+            }
+
+            return cityRepository.findStationById(cityId)
+                    .map(CityStation::WMOcode)
+                    .orElseThrow(() -> DeliveryFeeException.of(RejectionReason.INVALID_CITY));
+        });
+        List<CodeItem> weatherCodes = metrics.time(Stage.CLASSIFICATION, () -> weatherCodesLookup.apply(WMOcode));
+
+        if (metrics.time(Stage.PROHIBITION, () -> prohibitionService.isVehicleProhibited(weatherCodes, vehicleId))) {
+            return DeliveryFeeOutcome.rejected(RejectionReason.VEHICLE_FORBIDDEN);
+        }
+
+        Optional<RegionalBaseFeeRow> baseFee = metrics.time(Stage.BASE_FEE,
+                () -> baseFeeService.getBaseFee(cityId, vehicleId));
+        if (baseFee.isEmpty()) {
+            return DeliveryFeeOutcome.rejected(RejectionReason.VEHICLE_NOT_ALLOWED_IN_CITY);
+        }
+        long extraFee = metrics.time(Stage.EXTRA_FEE, () -> extraFeeService.getTotalExtraFeeCents(weatherCodes, vehicleId));
+        return DeliveryFeeOutcome.fee(toDeliveryFeeDto(cityId, vehicleId,
+                MoneyUtil.toCents(baseFee.get().feeAmount()), extraFee));
+    }
+
+    /**
+     * Calculates the fee from one row that the database joins from the latest measurement and the rules.
+     * Rejections are checked in the same order as in the other paths.
+     */
+    private DeliveryFeeOutcome getOutcomeWithSingleQuery(Long cityId, Long vehicleId) {
+        DeliveryFeeRow row = feeQueryRepository.findDeliveryFeeRow(cityId, vehicleId);
+        if (!row.getVehicleExists()) {
+            return DeliveryFeeOutcome.rejected(RejectionReason.INVALID_VEHICLE);
+        }
+        if (!row.getCityExists()) {
+            return DeliveryFeeOutcome.rejected(RejectionReason.INVALID_CITY);
+        }
+        if (!row.getWeatherAvailable()) {
+            return DeliveryFeeOutcome.weatherUnavailable(row.getWmoCode());
+        }
+        if (row.getProhibited()) {
+            return DeliveryFeeOutcome.rejected(RejectionReason.VEHICLE_FORBIDDEN);
+        }
+        if (row.getBaseFee() == null) {
+            return DeliveryFeeOutcome.rejected(RejectionReason.VEHICLE_NOT_ALLOWED_IN_CITY);
+        }
+        return DeliveryFeeOutcome.fee(toDeliveryFeeDto(cityId, vehicleId, MoneyUtil.toCents(row.getBaseFee()),
+                MoneyUtil.toCents(row.getExtraFee())));
+    }
+
+    /**
+     * Counts the request's rejection by reason, if it was rejected.
+     */
+    private DeliveryFeeOutcome countRejection(DeliveryFeeOutcome outcome) {
+        if (outcome.isRejected()) {
+            metrics.recordRejection(outcome.rejection());
+        }
+        return outcome;
+    }
+
+    /**
+     * Calculates delivery fees for many (city, vehicle) pairs at once. Invalid pairs do not fail the whole batch,
+     * their results carry an error message instead of a fee.
+     * Without a fee snapshot the batch is resolved with set-based lookups: one query each for vehicles, cities,
+     * latest measurements and base fees, regardless of the number of pairs.
+     *
+     * @param requests list of (cityId, vehicleId) pairs, null elements and null ids are rejected per pair
+     * @return Result for each pair, in request order
+     */
+    public List<DeliveryFeeResultDto> getDeliveryFees(List<DeliveryFeeRequestDto> requests) {
+        // A null element is a pair without ids, rejected like any other pair with a missing id.
+        requests = requests.stream()
+                .map(request -> request == null ? new DeliveryFeeRequestDto() : request)
+                .toList();
+        FeeSnapshot currentSnapshot = snapshot;
+        if (currentSnapshot != null) {
+            return requests.stream()
+                    .map(request -> toResult(request, countRejection(
+                            getOutcomeFromSnapshot(currentSnapshot, request.getCityId(), request.getVehicleId()))))
+                    .toList();
         }
+        return calculateDeliveryFees(requests);
+    }
+
+    private List<DeliveryFeeResultDto> calculateDeliveryFees(List<DeliveryFeeRequestDto> requests) {
+        Set<Long> requestedVehicleIds = new HashSet<>();
+        Set<Long> requestedCityIds = new HashSet<>();
+        for (DeliveryFeeRequestDto request : requests) {
+            if (request.getVehicleId() != null) {
+                requestedVehicleIds.add(request.getVehicleId());
+            }
+            if (request.getCityId() != null) {
+                requestedCityIds.add(request.getCityId());
+            }
+        }
+
+        Set<Long> vehicleIds = requestedVehicleIds.isEmpty()
+                ? Set.of()
+                : new HashSet<>(vehicleRepository.findIdsByIdIn(requestedVehicleIds));
+        Map<Long, Integer> cityStations = requestedCityIds.isEmpty()
+                ? Map.of()
+                : cityRepository.findStationsByIdIn(requestedCityIds).stream()
+                        .collect(Collectors.toMap(CityStation::id, CityStation::WMOcode));
 
-        City city = cityRepository.findById(cityId).orElseThrow(
-                () -> new DeliveryFeeException("Invalid city ID")
-        );
+        Map<Integer, WeatherMeasurementDto> measurements = weatherService.getLatestMeasurementsFromStations(
+                new HashSet<>(cityStations.values()));
+        Map<Integer, List<CodeItem>> stationCodes = new HashMap<>();
+        measurements.forEach((WMOcode, measurementDto) -> stationCodes.put(WMOcode,
+                weatherConditionService.getCodeItemsFromWeatherMeasurementDto(measurementDto)));
+
+        Map<Long, Map<Long, Long>> baseFeeCents =
+                toBaseFeeCents(baseFeeService.getBaseFees(cityStations.keySet(), vehicleIds));
+
+        List<DeliveryFeeResultDto> results = new ArrayList<>(requests.size());
+        for (DeliveryFeeRequestDto request : requests) {
+            results.add(toResult(request, countRejection(getBatchOutcome(request.getCityId(), request.getVehicleId(),
+                    vehicleIds, cityStations, stationCodes, baseFeeCents))));
+        }
+        return results;
+    }
 
-        WeatherMeasurementDto measurementDto = weatherService.getLatestMeasurementFromStation(city.getWeatherStation());
-        List<CodeItem> weatherCodes = weatherConditionService.getCodeItemsFromWeatherMeasurementDto(measurementDto);
+    /**
+     * Resolves one pair of a batch from the prefetched lookups. Null ids are rejected before any lookup.
+     */
+    private DeliveryFeeOutcome getBatchOutcome(Long cityId, Long vehicleId, Set<Long> vehicleIds,
+                                               Map<Long, Integer> cityStations,
+                                               Map<Integer, List<CodeItem>> stationCodes,
+                                               Map<Long, Map<Long, Long>> baseFeeCents) {
+        if (vehicleId == null || !vehicleIds.contains(vehicleId)) {
+            return DeliveryFeeOutcome.rejected(RejectionReason.INVALID_VEHICLE);
+        }
+        Integer WMOcode = cityId == null ? null : cityStations.get(cityId);
+        if (WMOcode == null) {
+            return DeliveryFeeOutcome.rejected(RejectionReason.INVALID_CITY);
+        }
+        List<CodeItem> weatherCodes = stationCodes.get(WMOcode);
+        if (weatherCodes == null) {
+            return DeliveryFeeOutcome.weatherUnavailable(WMOcode);
+        }
+        if (prohibitionService.isVehicleProhibited(weatherCodes, vehicleId)) {
+            return DeliveryFeeOutcome.rejected(RejectionReason.VEHICLE_FORBIDDEN);
+        }
+        Long baseFee = baseFeeCents.getOrDefault(cityId, Map.of()).get(vehicleId);
+        if (baseFee == null) {
+            return DeliveryFeeOutcome.rejected(RejectionReason.VEHICLE_NOT_ALLOWED_IN_CITY);
+        }
+        long extraFee = extraFeeService.getTotalExtraFeeCents(weatherCodes, vehicleId);
+        return DeliveryFeeOutcome.fee(toDeliveryFeeDto(cityId, vehicleId, baseFee, extraFee));
+    }
 
-        if (prohibitionService.findWeatherProhibitionForVehicle(weatherCodes, vehicleId).isPresent()) {
-            throw new DeliveryFeeException("Usage of selected vehicle type is forbidden");
+    /**
+     * @return base fees in cents by city id and vehicle id
+     */
+    private static Map<Long, Map<Long, Long>> toBaseFeeCents(List<RegionalBaseFeeRow> baseFees) {
+        Map<Long, Map<Long, Long>> baseFeeCents = new HashMap<>();
+        for (RegionalBaseFeeRow baseFee : baseFees) {
+            baseFeeCents.computeIfAbsent(baseFee.cityId(), id -> new HashMap<>())
+                    .put(baseFee.vehicleId(), MoneyUtil.toCents(baseFee.feeAmount()));
         }
+        return baseFeeCents;
+    }
 
-        return calculateDeliveryFee(cityId, vehicleId, weatherCodes);
+    private DeliveryFeeResultDto toResult(DeliveryFeeRequestDto request, DeliveryFeeOutcome outcome) {
+        return DeliveryFeeResultDto.builder()
+                .cityId(request.getCityId())
+                .vehicleId(request.getVehicleId())
+                .fee(outcome.fee())
+                .error(outcome.isRejected() ? outcome.rejection().getMessage() : null)
+                .build();
     }
 
-    private DeliveryFeeDto calculateDeliveryFee(Long cityId, Long vehicleId, List<CodeItem> weatherCodes) throws DeliveryFeeException {
-        BigDecimal baseFee = baseFeeService.getBaseFee(cityId, vehicleId).orElseThrow(
-                        () -> new DeliveryFeeException("This type of vehicle is not allowed in this city"))
-                .getFeeAmount();
-        BigDecimal extraFee = getTotalExtraFeeAmount(extraFeeService.getWeatherExtraFees(weatherCodes, vehicleId));
-        BigDecimal totalFee = baseFee.add(extraFee);
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refreshSnapshot();
+    }
 
+    /**
+     * Rebuilds the fee snapshot once the new weather measurements have been committed.
+     */
+    @TransactionalEventListener(classes = WeatherUpdatedEvent.class, fallbackExecution = true)
+    public void onWeatherUpdated() {
+        refreshSnapshot();
+    }
+
+    /**
+     * Rebuilds the fee snapshot after changed rules have been committed and reloaded.
+     */
+    @Order
+    @TransactionalEventListener(classes = RulesChangedEvent.class, fallbackExecution = true)
+    public void onRulesChanged() {
+        rulesVersion.incrementAndGet();
+        refreshSnapshot();
+    }
+
+    /**
+     * Rebuilds the fee snapshot for every (city, vehicle) pair and swaps it in atomically.
+     * Runs on startup, after every weather update and after rule changes. On failure the previous snapshot stays in use.
+     * The outcomes that differ from the previous snapshot are published as a FeesChangedEvent once the lock has been
+     * released, so listeners cannot hold up the next rebuild.
+     */
+    public void refreshSnapshot() {
+        if (!snapshotEnabled) {
+            return;
+        }
+        List<DeliveryFeeResultDto> changes;
+        refreshLock.lock();
+        try {
+            FeeSnapshot previous = snapshot;
+            try {
+                snapshot = buildSnapshot();
+            } catch (RuntimeException e) {
+                log.error("Could not rebuild the delivery fee snapshot, keeping the previous one", e);
+                return;
+            }
+            changes = previous == null ? List.of() : getChanges(previous, snapshot);
+        } finally {
+            refreshLock.unlock();
+        }
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new FeesChangedEvent(changes));
+        }
+    }
+
+    private List<DeliveryFeeResultDto> getChanges(FeeSnapshot previous, FeeSnapshot current) {
+        List<DeliveryFeeResultDto> changes = new ArrayList<>();
+        current.getChangedPairs(previous).forEach((cityId, vehicleIds) -> {
+            for (Long vehicleId : vehicleIds) {
+                changes.add(toResult(new DeliveryFeeRequestDto(cityId, vehicleId),
+                        getOutcomeFromSnapshot(current, cityId, vehicleId)));
+            }
+        });
+        return changes;
+    }
+
+    private FeeSnapshot buildSnapshot() {
+        Set<Long> vehicleIds = new HashSet<>(vehicleRepository.findAllIds());
+        // All base fees in one query rather than one per (city, vehicle) pair.
+        Map<Long, Map<Long, Long>> baseFeeCents = toBaseFeeCents(baseFeeService.getAllBaseFees());
+
+        long currentRulesVersion = rulesVersion.get();
+        Map<Integer, FeeSnapshot.Entry> unavailableStations = new HashMap<>();
+        Map<Integer, List<CodeItem>> stationCodes = new HashMap<>();
+        Map<Integer, Long> stationMeasurementTimes = new HashMap<>();
+        Map<Long, Map<Long, FeeSnapshot.Entry>> entriesByCity = new HashMap<>();
+        Map<Long, Long> measurementTimesByCity = new HashMap<>();
+        for (CityStation city : cityRepository.findAllStations()) {
+            Integer WMOcode = city.WMOcode();
+            if (!stationCodes.containsKey(WMOcode) && !unavailableStations.containsKey(WMOcode)) {
+                try {
+                    WeatherMeasurementDto measurementDto = weatherService.getLatestMeasurementFromStation(WMOcode);
+                    stationCodes.put(WMOcode, weatherConditionService.getCodeItemsFromWeatherMeasurementDto(measurementDto));
+                    stationMeasurementTimes.put(WMOcode, measurementDto.getTimestamp().getTime());
+                } catch (WeatherDataException e) {
+                    unavailableStations.put(WMOcode, FeeSnapshot.Entry.weatherUnavailable(e.getWMOcode()));
+                }
+            }
+
+            Map<Long, FeeSnapshot.Entry> entries = new HashMap<>();
+            for (Long vehicleId : vehicleIds) {
+                FeeSnapshot.Entry entry = unavailableStations.containsKey(WMOcode)
+                        ? unavailableStations.get(WMOcode)
+                        : buildSnapshotEntry(vehicleId, stationCodes.get(WMOcode),
+                                baseFeeCents.getOrDefault(city.id(), Map.of()).get(vehicleId));
+                entries.put(vehicleId, entry);
+            }
+            entriesByCity.put(city.id(), entries);
+            if (stationMeasurementTimes.containsKey(WMOcode)) {
+                measurementTimesByCity.put(city.id(), stationMeasurementTimes.get(WMOcode));
+            }
+        }
+        return new FeeSnapshot(vehicleIds, entriesByCity, measurementTimesByCity, currentRulesVersion);
+    }
+
+    private FeeSnapshot.Entry buildSnapshotEntry(Long vehicleId, List<CodeItem> weatherCodes, Long baseFeeCents) {
+        if (prohibitionService.isVehicleProhibited(weatherCodes, vehicleId)) {
+            return FeeSnapshot.Entry.rejected(RejectionReason.VEHICLE_FORBIDDEN);
+        }
+        if (baseFeeCents == null) {
+            return FeeSnapshot.Entry.rejected(RejectionReason.VEHICLE_NOT_ALLOWED_IN_CITY);
+        }
+        return FeeSnapshot.Entry.fee(baseFeeCents, extraFeeService.getTotalExtraFeeCents(weatherCodes, vehicleId));
+    }
+
+    private DeliveryFeeOutcome getOutcomeFromSnapshot(FeeSnapshot snapshot, Long cityId, Long vehicleId) {
+        if (!snapshot.hasVehicle(vehicleId)) {
+            return DeliveryFeeOutcome.rejected(RejectionReason.INVALID_VEHICLE);
+        }
+
+        Optional<FeeSnapshot.Entry> entry = snapshot.getEntry(cityId, vehicleId);
+        if (entry.isEmpty()) {
+            return DeliveryFeeOutcome.rejected(RejectionReason.INVALID_CITY);
+        }
+        FeeSnapshot.Entry found = entry.get();
+        if (found.unavailableWMOcode() != null) {
+            return DeliveryFeeOutcome.weatherUnavailable(found.unavailableWMOcode());
+        }
+        if (found.isRejected()) {
+            return DeliveryFeeOutcome.rejected(found.rejection());
+        }
+
+        return DeliveryFeeOutcome.fee(toDeliveryFeeDto(cityId, vehicleId, found.baseFeeCents(), found.extraFeeCents()));
+    }
+
+    /**
+     * Fees are summed in cents and only converted to amounts here, for the response.
+     */
+    private DeliveryFeeDto toDeliveryFeeDto(Long cityId, Long vehicleId, long baseFeeCents, long extraFeeCents) {
         return DeliveryFeeDto.builder()
                 .cityId(cityId)
                 .vehicleId(vehicleId)
-                .baseFee(baseFee)
-                .extraFee(extraFee)
-                .totalFee(totalFee)
+                .baseFee(MoneyUtil.toAmount(baseFeeCents))
+                .extraFee(MoneyUtil.toAmount(extraFeeCents))
+                .totalFee(MoneyUtil.toAmount(baseFeeCents + extraFeeCents))
                 .build();
     }
-
-    private BigDecimal getTotalExtraFeeAmount(List<ExtraFee> extraFees) {
-        return extraFees.stream()
-                .map(ExtraFee::getFeeAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
 }
@@ -1,9 +1,8 @@
 package com.fujitsu.trialtask.deliveryfee.service;
 
 
+import com.fujitsu.trialtask.deliveryfee.engine.RuleTables;
 import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
-import com.fujitsu.trialtask.deliveryfee.entity.ExtraFee;
-import com.fujitsu.trialtask.deliveryfee.repository.ExtraFeeRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -13,9 +12,15 @@ import java.util.List;
 @Service
 @RequiredArgsConstructor
 public class ExtraFeeService {
-    private final ExtraFeeRepository extraFeeRepository;
+    private final RuleTableService ruleTableService;
 
-    public List<ExtraFee> getWeatherExtraFees(List<CodeItem> weatherCodes, Long vehicleId) {
-        return extraFeeRepository.findAllByVehicleIdAndCodeItemIn(vehicleId, weatherCodes);
+    /**
+     * @param weatherCodes weather code items
+     * @param vehicleId    vehicle id
+     * @return sum of the vehicle's extra fees for the weather codes, in cents
+     */
+    public long getTotalExtraFeeCents(List<CodeItem> weatherCodes, Long vehicleId) {
+        RuleTables ruleTables = ruleTableService.getRuleTables();
+        return ruleTables.sumExtraFeeCents(vehicleId, ruleTables.toCodeMask(weatherCodes));
     }
 }
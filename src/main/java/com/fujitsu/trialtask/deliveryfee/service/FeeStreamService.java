@@ -0,0 +1,79 @@
+package com.fujitsu.trialtask.deliveryfee.service;
+
+import com.fujitsu.trialtask.deliveryfee.event.FeesChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pushes changed delivery fees to subscribed clients as server-sent events.
+ * Events are sent on a thread of their own, in the order they were published, so a slow client does not hold up
+ * the snapshot rebuild or the weather ingest that published them.
+ */
+@Slf4j
+@Service
+public class FeeStreamService {
+    private static final String FEE_CHANGES_EVENT = "fee-changes";
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final Executor sendExecutor;
+    @Value("${delivery.fee.stream.timeout-millis:0}")
+    private long timeoutMillis;
+
+    public FeeStreamService() {
+        this(Executors.newSingleThreadExecutor(new CustomizableThreadFactory("fee-stream-")));
+    }
+
+    FeeStreamService(Executor sendExecutor) {
+        this.sendExecutor = sendExecutor;
+    }
+
+    /**
+     * @return emitter that receives the changed fees after every snapshot rebuild until the client disconnects
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+        return emitter;
+    }
+
+    @EventListener
+    public void onFeesChanged(FeesChangedEvent event) {
+        if (!emitters.isEmpty()) {
+            sendExecutor.execute(() -> send(event));
+        }
+    }
+
+    private void send(FeesChangedEvent event) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name(FEE_CHANGES_EVENT).data(event.changes()));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Could not send fee changes, dropping the subscriber", e);
+                emitters.remove(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (sendExecutor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.fujitsu.trialtask.deliveryfee.service;
 
-import com.fujitsu.trialtask.deliveryfee.entity.RegionalBaseFee;
+import com.fujitsu.trialtask.deliveryfee.projection.RegionalBaseFeeRow;
 import com.fujitsu.trialtask.deliveryfee.repository.RegionalBaseFeeRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 
@@ -13,9 +16,21 @@ import java.util.Optional;
 public class RegionalBaseFeeService {
     private final RegionalBaseFeeRepository baseFeeRepository;
 
-    public Optional<RegionalBaseFee> getBaseFee(Long cityId, Long vehicleId) {
-        return baseFeeRepository.findByCityIdAndVehicleId(cityId, vehicleId);
+    @Transactional(readOnly = true)
+    public Optional<RegionalBaseFeeRow> getBaseFee(Long cityId, Long vehicleId) {
+        return baseFeeRepository.findRowByCityIdAndVehicleId(cityId, vehicleId);
     }
-}
 
+    @Transactional(readOnly = true)
+    public List<RegionalBaseFeeRow> getBaseFees(Collection<Long> cityIds, Collection<Long> vehicleIds) {
+        if (cityIds.isEmpty() || vehicleIds.isEmpty()) {
+            return List.of();
+        }
+        return baseFeeRepository.findRowsByCityIdInAndVehicleIdIn(cityIds, vehicleIds);
+    }
 
+    @Transactional(readOnly = true)
+    public List<RegionalBaseFeeRow> getAllBaseFees() {
+        return baseFeeRepository.findAllRows();
+    }
+}
@@ -0,0 +1,62 @@
+package com.fujitsu.trialtask.deliveryfee.service;
+
+import com.fujitsu.trialtask.deliveryfee.engine.RuleTables;
+import com.fujitsu.trialtask.deliveryfee.event.RulesChangedEvent;
+import com.fujitsu.trialtask.deliveryfee.repository.CodeItemRepository;
+import com.fujitsu.trialtask.deliveryfee.repository.ExtraFeeRepository;
+import com.fujitsu.trialtask.deliveryfee.repository.WorkProhibitionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+@RequiredArgsConstructor
+public class RuleTableService {
+    private final CodeItemRepository codeItemRepository;
+    private final WorkProhibitionRepository workProhibitionRepository;
+    private final ExtraFeeRepository extraFeeRepository;
+
+    /** Loaded on first use and replaced as a whole when the rules change. **/
+    private volatile RuleTables ruleTables;
+    /** A lock rather than synchronized, so virtual threads waiting for the load do not pin their carrier. **/
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    public RuleTables getRuleTables() {
+        RuleTables current = ruleTables;
+        if (current == null) {
+            reloadLock.lock();
+            try {
+                if (ruleTables == null) {
+                    reloadRules();
+                }
+                current = ruleTables;
+            } finally {
+                reloadLock.unlock();
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Reloads work prohibitions and extra fees. Runs before other listeners of the same change,
+     * so that they already use the new tables.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(classes = RulesChangedEvent.class, fallbackExecution = true)
+    public void reloadRules() {
+        reloadLock.lock();
+        try {
+            ruleTables = RuleTables.build(
+                    codeItemRepository.findAll(),
+                    workProhibitionRepository.findAllRows(),
+                    extraFeeRepository.findAllRows()
+            );
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+}
@@ -1,57 +1,83 @@
 package com.fujitsu.trialtask.deliveryfee.service;
 
 import com.fujitsu.trialtask.deliveryfee.dto.WeatherMeasurementDto;
+import com.fujitsu.trialtask.deliveryfee.engine.WeatherConditionEngine;
 import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
-import com.fujitsu.trialtask.deliveryfee.entity.SevereWeatherCondition;
+import com.fujitsu.trialtask.deliveryfee.event.RulesChangedEvent;
 import com.fujitsu.trialtask.deliveryfee.repository.SevereWeatherConditionRepository;
-import com.fujitsu.trialtask.deliveryfee.util.enums.CodeClass;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 @RequiredArgsConstructor
 public class SevereWeatherConditionService {
     private final SevereWeatherConditionRepository weatherConditionRepository;
 
-    public List<CodeItem> getCodeItemsFromWeatherMeasurementDto(WeatherMeasurementDto measurementDto) {
-        List<CodeItem> items = new ArrayList<>();
-        items.addAll(getCodeItemsFromWeatherPhenomenon(measurementDto.getPhenomenon()));
-        items.addAll(getCodeItemsFromWeatherFloatMeasurement(measurementDto.getAirTemperature(), CodeClass.AT));
-        items.addAll(getCodeItemsFromWeatherFloatMeasurement(measurementDto.getWindSpeed(), CodeClass.WS));
-        return items;
-    }
+    /** Compiled rules, built on first use and replaced as a whole when the rules change. **/
+    private volatile WeatherConditionEngine engine;
+    /** A lock rather than synchronized, so virtual threads waiting for the compile do not pin their carrier. **/
+    private final ReentrantLock reloadLock = new ReentrantLock();
 
-    private List<CodeItem> getCodeItemsFromWeatherPhenomenon(String phenomenon) {
-        if (phenomenon == null || phenomenon.isBlank()) {
-            return List.of();
+    /**
+     * Returns the code items stored with the measurement at ingest. Measurements that were not classified
+     * at ingest are classified with the current rules.
+     *
+     * @param measurementDto weather measurement
+     * @return List of matched code items
+     */
+    public List<CodeItem> getCodeItemsFromWeatherMeasurementDto(WeatherMeasurementDto measurementDto) {
+        if (measurementDto.isClassified()) {
+            return measurementDto.getCodeItems();
         }
+        return classify(measurementDto.getAirTemperature(), measurementDto.getWindSpeed(), measurementDto.getPhenomenon());
+    }
 
-        List<SevereWeatherCondition> allConditions =
-                weatherConditionRepository.findAllByCodeItemCodeClass(CodeClass.WP.name());
-        List<SevereWeatherCondition> conditions = allConditions.stream()
-                .filter(r -> r.getPhenomena()
-                        .stream()
-                        .anyMatch(p -> phenomenon.toLowerCase().contains(p.toLowerCase())))
-                .toList();
-
-        return conditionsToCodeItems(conditions);
+    /**
+     * Evaluates the current severe weather conditions for the given readings.
+     *
+     * @param airTemperature air temperature
+     * @param windSpeed      wind speed
+     * @param phenomenon     weather phenomenon
+     * @return List of matched code items
+     */
+    public List<CodeItem> classify(Float airTemperature, Float windSpeed, String phenomenon) {
+        return getEngine().classify(airTemperature, windSpeed, phenomenon);
     }
 
-    private List<CodeItem> getCodeItemsFromWeatherFloatMeasurement(Float measurement, CodeClass codeClass) {
-        if (measurement == null) {
-            return List.of();
+    /**
+     * Recompiles the severe weather conditions. Runs before other listeners of the same change,
+     * so that they already classify with the new rules.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(classes = RulesChangedEvent.class, fallbackExecution = true)
+    public void reloadRules() {
+        reloadLock.lock();
+        try {
+            engine = WeatherConditionEngine.compile(weatherConditionRepository.findAllWithPhenomena());
+        } finally {
+            reloadLock.unlock();
         }
-
-        List<SevereWeatherCondition> conditions =
-                weatherConditionRepository.findAllByCodeItemCodeClassAndMeasurement(codeClass.name(), measurement);
-
-        return conditionsToCodeItems(conditions);
     }
 
-    private List<CodeItem> conditionsToCodeItems(List<SevereWeatherCondition> conditions) {
-        return conditions.stream().map(SevereWeatherCondition::getCodeItem).toList();
+    private WeatherConditionEngine getEngine() {
+        WeatherConditionEngine current = engine;
+        if (current == null) {
+            reloadLock.lock();
+            try {
+                if (engine == null) {
+                    reloadRules();
+                }
+                current = engine;
+            } finally {
+                reloadLock.unlock();
+            }
+        }
+        return current;
     }
 }
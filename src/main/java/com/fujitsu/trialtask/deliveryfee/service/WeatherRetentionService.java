@@ -0,0 +1,165 @@
+package com.fujitsu.trialtask.deliveryfee.service;
+
+import com.fujitsu.trialtask.deliveryfee.engine.MeasurementAccumulator;
+import com.fujitsu.trialtask.deliveryfee.entity.WeatherMeasurement;
+import com.fujitsu.trialtask.deliveryfee.entity.WeatherMeasurementAggregate;
+import com.fujitsu.trialtask.deliveryfee.entity.WeatherMeasurementDaily;
+import com.fujitsu.trialtask.deliveryfee.entity.WeatherMeasurementHourly;
+import com.fujitsu.trialtask.deliveryfee.entity.WeatherStation;
+import com.fujitsu.trialtask.deliveryfee.repository.WeatherMeasurementDailyRepository;
+import com.fujitsu.trialtask.deliveryfee.repository.WeatherMeasurementHourlyRepository;
+import com.fujitsu.trialtask.deliveryfee.repository.WeatherMeasurementRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the weather history bounded. Raw measurements older than the raw window are rolled up into hourly
+ * aggregates, and hourly aggregates older than the hourly window into daily aggregates. Rolled up rows are deleted.
+ * <p>
+ * Each hour (or day) is rolled up in its own short transaction and rows are deleted in chunks, so fee requests
+ * and the weather ingest are not held up by a long-running job. The stations' latest measurements are never
+ * rolled up.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WeatherRetentionService {
+    private final WeatherMeasurementRepository weatherRepository;
+    private final WeatherMeasurementHourlyRepository hourlyRepository;
+    private final WeatherMeasurementDailyRepository dailyRepository;
+    private final TransactionTemplate transactionTemplate;
+    @Value("${weather.retention.raw-window:P30D}")
+    private Duration rawWindow;
+    @Value("${weather.retention.hourly-window:P365D}")
+    private Duration hourlyWindow;
+    @Value("${weather.retention.delete-chunk-size:500}")
+    private int deleteChunkSize;
+
+    @Scheduled(cron = "${weather.retention.cron-expression}")
+    public void compactHistory() {
+        Instant now = Instant.now();
+        int measurements = rollUpMeasurements(Timestamp.from(now.minus(rawWindow).truncatedTo(ChronoUnit.HOURS)));
+        int hourly = rollUpHourlyAggregates(Timestamp.from(now.minus(hourlyWindow).truncatedTo(ChronoUnit.DAYS)));
+        log.info("Rolled up {} weather measurements and {} hourly aggregates", measurements, hourly);
+    }
+
+    /**
+     * Rolls up raw measurements taken before the cutoff into hourly aggregates, one hour at a time.
+     *
+     * @param cutoff start of the first hour that is kept
+     * @return number of rolled up measurements
+     */
+    public int rollUpMeasurements(Timestamp cutoff) {
+        int total = 0;
+        Timestamp oldest;
+        while ((oldest = weatherRepository.findOldestTimestampBefore(cutoff)) != null) {
+            Instant from = oldest.toInstant().truncatedTo(ChronoUnit.HOURS);
+            Integer rolledUp = transactionTemplate.execute(status ->
+                    rollUpMeasurementHour(Timestamp.from(from), Timestamp.from(from.plus(1, ChronoUnit.HOURS))));
+            total += rolledUp == null ? 0 : rolledUp;
+        }
+        return total;
+    }
+
+    /**
+     * Rolls up hourly aggregates of days before the cutoff into daily aggregates, one day at a time.
+     *
+     * @param cutoff start of the first day that is kept
+     * @return number of rolled up hourly aggregates
+     */
+    public int rollUpHourlyAggregates(Timestamp cutoff) {
+        int total = 0;
+        Timestamp oldest;
+        while ((oldest = hourlyRepository.findOldestPeriodStartBefore(cutoff)) != null) {
+            Instant from = oldest.toInstant().truncatedTo(ChronoUnit.DAYS);
+            Integer rolledUp = transactionTemplate.execute(status ->
+                    rollUpHourlyDay(Timestamp.from(from), Timestamp.from(from.plus(1, ChronoUnit.DAYS))));
+            total += rolledUp == null ? 0 : rolledUp;
+        }
+        return total;
+    }
+
+    private int rollUpMeasurementHour(Timestamp from, Timestamp to) {
+        List<WeatherMeasurement> measurements = weatherRepository.findAllNotLatestBetween(from, to);
+        Map<Integer, WeatherStation> stations = new HashMap<>();
+        Map<Integer, MeasurementAccumulator> accumulators = new LinkedHashMap<>();
+        for (WeatherMeasurement measurement : measurements) {
+            WeatherStation station = measurement.getWeatherStation();
+            stations.putIfAbsent(station.getWMOcode(), station);
+            accumulators.computeIfAbsent(station.getWMOcode(), WMOcode -> new MeasurementAccumulator()).add(measurement);
+        }
+        saveAggregates(from, stations, accumulators,
+                hourlyRepository.findAllByPeriodStartGreaterThanEqualAndPeriodStartLessThan(from, to),
+                WeatherMeasurementHourly::new, hourlyRepository::save);
+
+        List<Long> ids = measurements.stream().map(WeatherMeasurement::getId).toList();
+        for (int i = 0; i < ids.size(); i += deleteChunkSize) {
+            List<Long> chunk = ids.subList(i, Math.min(i + deleteChunkSize, ids.size()));
+            weatherRepository.deleteCodeItemsByMeasurementIdIn(chunk);
+            weatherRepository.deleteAllByIdIn(chunk);
+        }
+        return ids.size();
+    }
+
+    private int rollUpHourlyDay(Timestamp from, Timestamp to) {
+        List<WeatherMeasurementHourly> hourlyAggregates =
+                hourlyRepository.findAllByPeriodStartGreaterThanEqualAndPeriodStartLessThan(from, to);
+        Map<Integer, WeatherStation> stations = new HashMap<>();
+        Map<Integer, MeasurementAccumulator> accumulators = new LinkedHashMap<>();
+        for (WeatherMeasurementHourly hourly : hourlyAggregates) {
+            WeatherStation station = hourly.getWeatherStation();
+            stations.putIfAbsent(station.getWMOcode(), station);
+            accumulators.computeIfAbsent(station.getWMOcode(), WMOcode -> new MeasurementAccumulator()).add(hourly);
+        }
+        saveAggregates(from, stations, accumulators,
+                dailyRepository.findAllByPeriodStartGreaterThanEqualAndPeriodStartLessThan(from, to),
+                WeatherMeasurementDaily::new, dailyRepository::save);
+
+        List<Long> ids = hourlyAggregates.stream().map(WeatherMeasurementAggregate::getId).toList();
+        for (int i = 0; i < ids.size(); i += deleteChunkSize) {
+            hourlyRepository.deleteAllByIdIn(ids.subList(i, Math.min(i + deleteChunkSize, ids.size())));
+        }
+        return ids.size();
+    }
+
+    /**
+     * Saves the accumulated values of the period per station. Aggregates that already exist for the period,
+     * e.g. from rows that arrived late, are merged with the new values.
+     */
+    private <T extends WeatherMeasurementAggregate> void saveAggregates(
+            Timestamp periodStart, Map<Integer, WeatherStation> stations,
+            Map<Integer, MeasurementAccumulator> accumulators, List<T> existing,
+            Supplier<T> factory, Consumer<T> save) {
+        Map<Integer, T> existingByStation = new HashMap<>();
+        for (T aggregate : existing) {
+            existingByStation.put(aggregate.getWeatherStation().getWMOcode(), aggregate);
+        }
+        accumulators.forEach((WMOcode, accumulator) -> {
+            T aggregate = existingByStation.get(WMOcode);
+            if (aggregate == null) {
+                aggregate = factory.get();
+                aggregate.setPeriodStart(periodStart);
+                aggregate.setWeatherStation(stations.get(WMOcode));
+            } else {
+                accumulator.add(aggregate);
+            }
+            accumulator.writeTo(aggregate);
+            save.accept(aggregate);
+        });
+    }
+}
@@ -1,105 +1,537 @@
 package com.fujitsu.trialtask.deliveryfee.service;
 
 import com.fujitsu.trialtask.deliveryfee.dto.WeatherMeasurementDto;
+import com.fujitsu.trialtask.deliveryfee.engine.LatestMeasurementIndex;
+import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
 import com.fujitsu.trialtask.deliveryfee.entity.WeatherStation;
-import com.fujitsu.trialtask.deliveryfee.model.WeatherObservationModel;
+import com.fujitsu.trialtask.deliveryfee.entity.WeatherStationLatest;
+import com.fujitsu.trialtask.deliveryfee.event.WeatherUpdatedEvent;
 import com.fujitsu.trialtask.deliveryfee.model.WeatherStationModel;
 import com.fujitsu.trialtask.deliveryfee.entity.WeatherMeasurement;
 import com.fujitsu.trialtask.deliveryfee.mapper.WeatherMeasurementMapper;
+import com.fujitsu.trialtask.deliveryfee.metrics.WeatherMetrics;
+import com.fujitsu.trialtask.deliveryfee.projection.MeasurementReading;
+import com.fujitsu.trialtask.deliveryfee.provider.WeatherObservation;
+import com.fujitsu.trialtask.deliveryfee.provider.WeatherProvider;
+import com.fujitsu.trialtask.deliveryfee.repository.CodeItemRepository;
+import com.fujitsu.trialtask.deliveryfee.repository.WeatherMeasurementDailyRepository;
+import com.fujitsu.trialtask.deliveryfee.repository.WeatherMeasurementHourlyRepository;
 import com.fujitsu.trialtask.deliveryfee.repository.WeatherMeasurementRepository;
+import com.fujitsu.trialtask.deliveryfee.repository.WeatherStationLatestRepository;
 import com.fujitsu.trialtask.deliveryfee.repository.WeatherStationRepository;
 import com.fujitsu.trialtask.deliveryfee.util.exception.WeatherDataException;
 import com.fujitsu.trialtask.deliveryfee.util.exception.WeatherRequestException;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntPredicate;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class WeatherService {
+    private static final long ROLLED_UP_AFTER_MILLIS = Duration.ofHours(1).toMillis();
+    private static final long HOURLY_PERIOD_MILLIS = Duration.ofHours(1).toMillis();
+    private static final long DAILY_PERIOD_MILLIS = Duration.ofDays(1).toMillis();
+
     private final WeatherMeasurementRepository weatherRepository;
+    private final WeatherStationLatestRepository latestRepository;
+    private final WeatherMeasurementHourlyRepository hourlyRepository;
+    private final WeatherMeasurementDailyRepository dailyRepository;
     private final WeatherStationRepository stationRepository;
+    private final CodeItemRepository codeItemRepository;
+    private final SevereWeatherConditionService weatherConditionService;
     private final WeatherMeasurementMapper weatherMapper;
-    private final RestTemplate restTemplate;
-    @Value("${weather.service.request-url}")
-    private String weatherRequestUrl;
+    private final WeatherMetrics weatherMetrics;
+    private final List<WeatherProvider> providers;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskScheduler taskScheduler;
+    private final LatestMeasurementIndex latestIndex = new LatestMeasurementIndex();
+    private final SimpleAsyncTaskExecutor providerExecutor = new SimpleAsyncTaskExecutor("weather-provider-");
+    @Value("${weather.service.cron-expression}")
+    private String cronExpression;
+    @Value("${weather.service.catch-up-interval:PT2M}")
+    private Duration catchUpInterval;
+    private volatile CronExpression updateSchedule;
+    /** Ingest scheduled after a failed one, cancelled when any ingest starts. **/
+    private final AtomicReference<ScheduledFuture<?>> catchUp = new AtomicReference<>();
+
+    /**
+     * Fetches the providers on virtual threads when the application runs with {@code spring.threads.virtual.enabled}
+     * on Java 21, like request handling and the scheduled ingest.
+     *
+     * @param environment application environment
+     */
+    @Autowired
+    void configureProviderExecutor(Environment environment) {
+        providerExecutor.setVirtualThreads(Threading.VIRTUAL.isActive(environment));
+    }
 
     /**
      * Finds the latest weather measurement from a station.
+     * Served from memory, or with a primary key lookup of the station's latest measurement. Not transactional, so a
+     * measurement served from memory takes no database connection; a lookup runs in the repository's read-only
+     * transaction.
      *
-     * @param station WeatherStation entity
+     * @param WMOcode WMO code of the station
      * @return WeatherMeasurementDto
      * @throws WeatherDataException Weather data for the station is not available in the database
      */
-    public WeatherMeasurementDto getLatestMeasurementFromStation(WeatherStation station) throws WeatherDataException {
-        WeatherMeasurement measurement =
-                weatherRepository.findTopByWeatherStationWMOcodeOrderByTimestampDesc(station.getWMOcode())
-                        .orElseThrow(() -> new WeatherDataException("Weather data is not available", station.getWMOcode()));
-        return weatherMapper.toDto(measurement);
+    public WeatherMeasurementDto getLatestMeasurementFromStation(Integer WMOcode) throws WeatherDataException {
+        WeatherMeasurementDto cached = latestIndex.get(WMOcode);
+        if (cached != null) {
+            return cached;
+        }
+        WeatherMeasurement measurement = latestRepository.findWithMeasurementById(WMOcode)
+                .map(WeatherStationLatest::getWeatherMeasurement)
+                .orElseThrow(() -> new WeatherDataException("Weather data is not available", WMOcode));
+        WeatherMeasurementDto measurementDto = weatherMapper.toDto(measurement);
+        updateLatestIndex(measurementDto);
+        return measurementDto;
+    }
+
+    /**
+     * Finds the readings of the station's weather measurement that was in effect at given time, i.e. the last one
+     * taken at or before it. If the measurements of that time have been rolled up by the retention job, the latest
+     * hourly or daily aggregate whose period had ended by then is used instead, so no reading taken after that time
+     * is averaged in.
+     * Only the readings are selected, the measurement and its station are not loaded.
+     *
+     * @param WMOcode WMO code of the station
+     * @param at      point in time
+     * @return MeasurementReading
+     * @throws WeatherDataException Weather data for the station is not available for that time
+     */
+    @Transactional(readOnly = true)
+    public MeasurementReading getReadingFromStationAt(Integer WMOcode, Timestamp at) throws WeatherDataException {
+        Optional<MeasurementReading> measurement = weatherRepository.findReadingAt(WMOcode, at);
+        // Measurements are hourly, an older one means the measurement of that time may have been rolled up.
+        if (measurement.isPresent() && at.getTime() - measurement.get().timestamp().getTime() < ROLLED_UP_AFTER_MILLIS) {
+            return measurement.get();
+        }
+        // Only aggregates of periods that had ended by then, the period in progress averages in later readings.
+        Optional<MeasurementReading> hourly = hourlyRepository.findReadingAt(WMOcode,
+                new Timestamp(at.getTime() - HOURLY_PERIOD_MILLIS));
+        Optional<MeasurementReading> daily = dailyRepository.findReadingAt(WMOcode,
+                new Timestamp(at.getTime() - DAILY_PERIOD_MILLIS));
+        return Stream.of(measurement, hourly, daily)
+                .flatMap(Optional::stream)
+                .max(Comparator.comparing(MeasurementReading::timestamp))
+                .orElseThrow(() -> new WeatherDataException("Weather data is not available", WMOcode));
+    }
+
+    /**
+     * Finds the latest weather measurement for each of the given stations.
+     * Stations missing from memory are looked up with a single query, like in {@link #getLatestMeasurementFromStation}.
+     *
+     * @param WMOcodes WMO codes of the stations
+     * @return Map(Key: Integer (WMO), Value: WeatherMeasurementDto). Stations without data are left out.
+     */
+    public Map<Integer, WeatherMeasurementDto> getLatestMeasurementsFromStations(Collection<Integer> WMOcodes) {
+        Map<Integer, WeatherMeasurementDto> measurements = new HashMap<>();
+        Set<Integer> missingWMOcodes = new HashSet<>();
+        for (Integer WMOcode : WMOcodes) {
+            WeatherMeasurementDto cached = latestIndex.get(WMOcode);
+            if (cached != null) {
+                measurements.put(WMOcode, cached);
+            } else {
+                missingWMOcodes.add(WMOcode);
+            }
+        }
+        if (!missingWMOcodes.isEmpty()) {
+            for (WeatherStationLatest latest : latestRepository.findAllWithMeasurementByIdIn(missingWMOcodes)) {
+                WeatherMeasurementDto measurementDto = weatherMapper.toDto(latest.getWeatherMeasurement());
+                updateLatestIndex(measurementDto);
+                measurements.put(latest.getWMOcode(), measurementDto);
+            }
+        }
+        return measurements;
+    }
+
+    /**
+     * @return time until the next scheduled weather update, zero if the schedule is disabled or has no next execution
+     */
+    public Duration getTimeUntilNextUpdate() {
+        if (Scheduled.CRON_DISABLED.equals(cronExpression)) {
+            return Duration.ZERO;
+        }
+        CronExpression schedule = updateSchedule;
+        if (schedule == null) {
+            schedule = CronExpression.parse(cronExpression);
+            updateSchedule = schedule;
+        }
+        ZonedDateTime now = ZonedDateTime.now();
+        ZonedDateTime next = schedule.next(now);
+        return next == null ? Duration.ZERO : Duration.between(now, next);
     }
 
+    /**
+     * Fetches the latest observations from all weather providers concurrently and stores the measurements of
+     * registered stations. Readings of the same station are merged, the most recent one wins; on equal timestamps
+     * the provider with the higher precedence wins. A provider that fails or times out is left out of the update;
+     * if none of the others has modified observations, the ingest fails, so that it is caught up.
+     * Stations that already have a measurement at or after the reading's timestamp are left out, so unchanged feeds
+     * cause no writes. A measurement that already exists for the station and timestamp is updated instead of inserted.
+     * The ingest is timed by outcome.
+     * <p>
+     * The providers are fetched before the write transaction begins, so no database connection is held while
+     * waiting for them; the wait is bounded by the providers' timeouts. A failed ingest is retried after the
+     * catch-up interval until one succeeds or the next scheduled update comes first.
+     */
     @Scheduled(cron = "${weather.service.cron-expression}")
-    private void updateWeather() {
-        WeatherObservationModel observation = requestWeatherObservation();
-        if (observation == null) {
-            throw new WeatherRequestException("Weather observation from request is null at " + LocalDateTime.now());
+    public void updateWeather() {
+        cancelCatchUp();
+        Timer.Sample sample = weatherMetrics.startIngest();
+        WeatherMetrics.IngestOutcome outcome = WeatherMetrics.IngestOutcome.FAILED;
+        try {
+            outcome = ingestWeather();
+        } finally {
+            weatherMetrics.stopIngest(sample, outcome);
+            if (outcome == WeatherMetrics.IngestOutcome.FAILED) {
+                scheduleCatchUp();
+            }
         }
-        List<WeatherMeasurement> measurements = ObservationDtoToWeatherMeasurements(observation);
-        if (measurements.isEmpty()) {
+    }
+
+    private WeatherMetrics.IngestOutcome ingestWeather() {
+        Set<Integer> requiredWMOcodes = getStationMap(stationRepository.findAll()).keySet();
+        List<WeatherProvider> modifiedProviders = new ArrayList<>();
+        List<WeatherProvider> failedProviders = new ArrayList<>();
+        Map<Integer, WeatherObservation.Reading> readings =
+                fetchReadings(requiredWMOcodes::contains, modifiedProviders, failedProviders);
+        if (modifiedProviders.isEmpty()) {
+            if (!failedProviders.isEmpty()) {
+                // Failed rather than not modified, so the failed providers are caught up.
+                throw new WeatherRequestException(failedProviders.size() + " weather providers could not be fetched "
+                        + "and the others have not been modified at " + LocalDateTime.now());
+            }
+            log.info("Weather observations have not been modified since the last request");
+            return WeatherMetrics.IngestOutcome.NOT_MODIFIED;
+        }
+        if (readings.isEmpty()) {
             throw new WeatherRequestException("Weather observation from request does not contain measurements at" + LocalDateTime.now());
         }
-        weatherRepository.saveAll(measurements);
+        return transactionTemplate.execute(status -> storeReadings(readings, modifiedProviders));
+    }
+
+    private WeatherMetrics.IngestOutcome storeReadings(Map<Integer, WeatherObservation.Reading> readings,
+                                                       List<WeatherProvider> modifiedProviders) {
+        afterCommit(() -> modifiedProviders.forEach(WeatherProvider::onIngested));
+
+        // Looked up again in the write transaction, so the measurements reference managed stations.
+        Map<Integer, WeatherStation> requiredStations = getStationMap(stationRepository.findAll());
+        List<WeatherMeasurement> requested = new ArrayList<>(readings.size());
+        readings.forEach((WMOcode, reading) -> {
+            WeatherStation station = requiredStations.get(WMOcode);
+            if (station != null) {
+                requested.add(toWeatherMeasurement(reading.station(), station, reading.timestamp()));
+            }
+        });
+        Map<Integer, WeatherStationLatest> latestByStation = getLatestByStation(requested);
+        List<WeatherMeasurement> measurements = getNewMeasurements(requested, latestByStation);
+        if (measurements.isEmpty()) {
+            log.info("Weather observations have already been ingested");
+            return WeatherMetrics.IngestOutcome.UNCHANGED;
+        }
+        List<WeatherMeasurement> saved = upsertMeasurements(measurements);
+        updateLatestMeasurements(saved, latestByStation);
+        Timestamp newest = saved.stream().map(WeatherMeasurement::getTimestamp).max(Comparator.naturalOrder()).orElseThrow();
+        eventPublisher.publishEvent(new WeatherUpdatedEvent(newest, saved.size()));
+        return WeatherMetrics.IngestOutcome.STORED;
+    }
+
+    /**
+     * Schedules another ingest after the catch-up interval, unless the next scheduled update comes first
+     * or the schedule is disabled. Replaces a catch-up that is already pending.
+     */
+    private void scheduleCatchUp() {
+        if (catchUpInterval.isZero() || getTimeUntilNextUpdate().compareTo(catchUpInterval) <= 0) {
+            return;
+        }
+        log.info("Weather update failed, catching up in {}", catchUpInterval);
+        ScheduledFuture<?> previous = catchUp.getAndSet(
+                taskScheduler.schedule(this::updateWeather, Instant.now().plus(catchUpInterval)));
+        if (previous != null) {
+            previous.cancel(false);
+        }
     }
 
-    private WeatherObservationModel requestWeatherObservation() {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setAccept(List.of(MediaType.APPLICATION_XML));
+    private void cancelCatchUp() {
+        ScheduledFuture<?> pending = catchUp.getAndSet(null);
+        if (pending != null) {
+            pending.cancel(false);
+        }
+    }
+
+    /**
+     * Fetches all providers concurrently and waits for them once, until the last of them has completed or the
+     * longest provider timeout has passed, so the fetch takes as long as the slowest provider or its timeout.
+     * Providers with a non-blocking client hold no thread while their requests are in flight.
+     *
+     * @param stationFilter     decides by WMO code which stations are wanted
+     * @param modifiedProviders receives the providers that returned modified observations
+     * @param failedProviders   receives the providers that failed or timed out
+     * @return the most recent reading of each station
+     * @throws WeatherRequestException none of the providers could be fetched
+     */
+    private Map<Integer, WeatherObservation.Reading> fetchReadings(IntPredicate stationFilter,
+                                                                    List<WeatherProvider> modifiedProviders,
+                                                                    List<WeatherProvider> failedProviders) {
+        List<CompletableFuture<WeatherObservation>> fetches = providers.stream()
+                .map(provider -> provider.fetchAsync(stationFilter, providerExecutor)
+                        .orTimeout(provider.getTimeout().toMillis(), TimeUnit.MILLISECONDS))
+                .toList();
+        awaitFetches(fetches);
+
+        Map<Integer, WeatherObservation.Reading> readings = new HashMap<>();
+        for (int i = 0; i < providers.size(); i++) {
+            WeatherProvider provider = providers.get(i);
+            WeatherObservation observation;
+            try {
+                // Completed by now, so this does not block.
+                observation = fetches.get(i).join();
+            } catch (CompletionException | CancellationException e) {
+                log.warn("Weather provider {} failed, leaving it out of the update", provider.getName(),
+                        e instanceof CompletionException ? e.getCause() : e);
+                failedProviders.add(provider);
+                continue;
+            }
+            if (!observation.isModified()) {
+                continue;
+            }
+            modifiedProviders.add(provider);
+            for (WeatherObservation.Reading reading : observation.readings()) {
+                readings.merge(reading.station().getWMOcode(), reading,
+                        (current, candidate) -> candidate.timestamp().after(current.timestamp()) ? candidate : current);
+            }
+        }
+        if (!providers.isEmpty() && failedProviders.size() == providers.size()) {
+            throw new WeatherRequestException("None of the weather providers could be fetched at " + LocalDateTime.now());
+        }
+        return readings;
+    }
+
+    /**
+     * Waits for all fetches with a single deadline, the longest provider timeout. Fetches that have not completed
+     * by then are cancelled.
+     */
+    private void awaitFetches(List<CompletableFuture<WeatherObservation>> fetches) {
+        Duration deadline = providers.stream()
+                .map(WeatherProvider::getTimeout)
+                .max(Comparator.naturalOrder())
+                .orElse(Duration.ZERO);
         try {
-            return restTemplate.getForObject(weatherRequestUrl, WeatherObservationModel.class, headers);
-        } catch (RestClientException e) {
-            throw new WeatherRequestException("An error has occurred when attempting restTemplate.getForObject()", e.getCause());
+            CompletableFuture.allOf(fetches.toArray(CompletableFuture[]::new))
+                    .get(deadline.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // Failed and late fetches are reported per provider.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WeatherRequestException("Interrupted while fetching weather observations", e);
+        } finally {
+            fetches.forEach(fetch -> fetch.cancel(true));
+        }
+    }
+
+    private WeatherMeasurement toWeatherMeasurement(WeatherStationModel stationModel, WeatherStation station,
+                                                    Timestamp timestamp) {
+        // Maps air temp, wind speed, phenomenon to measurement.
+        WeatherMeasurement measurement = weatherMapper.toEntity(stationModel);
+        measurement.setWeatherStation(station);
+        measurement.setTimestamp(timestamp);
+        return measurement;
+    }
+
+    private Map<Integer, WeatherStationLatest> getLatestByStation(List<WeatherMeasurement> measurements) {
+        Map<Integer, WeatherStationLatest> latestByStation = new HashMap<>();
+        List<Integer> WMOcodes = measurements.stream().map(m -> m.getWeatherStation().getWMOcode()).toList();
+        for (WeatherStationLatest latest : latestRepository.findAllById(WMOcodes)) {
+            latestByStation.put(latest.getWMOcode(), latest);
         }
+        return latestByStation;
     }
 
     /**
-     * Extracts weather data as WeatherMeasurement objects from the observation.
-     * Only extracts data for stations that are present in the repository.
+     * Leaves out measurements of stations that already have a measurement at or after the measurement's timestamp,
+     * and repeated stations of the same observation.
      *
-     * @param observation WeatherObservationModel object from the HTTP request
-     * @return List of extracted weather data objects (WeatherMeasurement)
+     * @param measurements    requested measurements
+     * @param latestByStation stations' latest measurements
+     * @return measurements that are newer than the stations' latest ones
      */
-    private List<WeatherMeasurement> ObservationDtoToWeatherMeasurements(WeatherObservationModel observation) {
-        // Timestamp constructor requires time in milliseconds.
-        Timestamp timestamp = new Timestamp(observation.getTimeInSeconds() * 1000);
-        List<WeatherStationModel> stationModels = observation.getStations();
-        Map<Integer, WeatherStation> requiredStations = getStationMap(stationRepository.findAll());
+    private List<WeatherMeasurement> getNewMeasurements(List<WeatherMeasurement> measurements,
+                                                        Map<Integer, WeatherStationLatest> latestByStation) {
+        Map<Integer, WeatherMeasurement> newMeasurements = new LinkedHashMap<>();
+        for (WeatherMeasurement measurement : measurements) {
+            Integer WMOcode = measurement.getWeatherStation().getWMOcode();
+            WeatherStationLatest latest = latestByStation.get(WMOcode);
+            if (latest == null || latest.getWeatherMeasurement().getTimestamp().before(measurement.getTimestamp())) {
+                newMeasurements.putIfAbsent(WMOcode, measurement);
+            }
+        }
+        return new ArrayList<>(newMeasurements.values());
+    }
+
+    /**
+     * Saves the measurements, updating the readings of rows that already exist for the same station and timestamp.
+     *
+     * @param measurements new measurements, one per station
+     * @return saved measurements
+     */
+    private List<WeatherMeasurement> upsertMeasurements(List<WeatherMeasurement> measurements) {
+        Map<Integer, Timestamp> timestamps = new HashMap<>();
+        for (WeatherMeasurement measurement : measurements) {
+            timestamps.put(measurement.getWeatherStation().getWMOcode(), measurement.getTimestamp());
+        }
+        Map<Integer, WeatherMeasurement> existing = new HashMap<>();
+        for (WeatherMeasurement measurement : weatherRepository.findAllByWeatherStationWMOcodeInAndTimestampIn(
+                timestamps.keySet(), new HashSet<>(timestamps.values()))) {
+            Integer WMOcode = measurement.getWeatherStation().getWMOcode();
+            if (measurement.getTimestamp().equals(timestamps.get(WMOcode))) {
+                existing.put(WMOcode, measurement);
+            }
+        }
 
-        List<WeatherMeasurement> measurements = new ArrayList<>();
-        for (WeatherStationModel stationModel : stationModels) {
-            if (stationModel.getWMOcode() != null) {
-                int stationModelWMO = stationModel.getWMOcode();
-                if (requiredStations.containsKey(stationModelWMO)) {
-                    // Maps air temp, wind speed, phenomenon to measurement.
-                    WeatherMeasurement measurement = weatherMapper.toEntity(stationModel);
-                    measurement.setWeatherStation(requiredStations.get(stationModelWMO));
-                    measurement.setTimestamp(timestamp);
-                    measurements.add(measurement);
+        List<WeatherMeasurement> upserted = new ArrayList<>(measurements.size());
+        for (WeatherMeasurement measurement : measurements) {
+            WeatherMeasurement current = existing.get(measurement.getWeatherStation().getWMOcode());
+            if (current == null) {
+                upserted.add(measurement);
+            } else {
+                current.setAirTemperature(measurement.getAirTemperature());
+                current.setWindSpeed(measurement.getWindSpeed());
+                current.setPhenomenon(measurement.getPhenomenon());
+                upserted.add(current);
+            }
+        }
+        classifyMeasurements(upserted);
+        int updated = existing.size();
+        afterCommit(() -> weatherMetrics.recordRowsWritten(upserted.size() - updated, updated));
+        return weatherRepository.saveAllInBatches(upserted);
+    }
+
+    /**
+     * Evaluates the severe weather conditions once per measurement and stores the matched code items with it,
+     * so fee requests use the codes of the rules that were active at ingest instead of classifying again.
+     *
+     * @param measurements measurements to classify
+     */
+    private void classifyMeasurements(List<WeatherMeasurement> measurements) {
+        Map<String, CodeItem> codeItems = new HashMap<>();
+        for (CodeItem codeItem : codeItemRepository.findAll()) {
+            codeItems.put(codeItem.getCode(), codeItem);
+        }
+        for (WeatherMeasurement measurement : measurements) {
+            List<CodeItem> matched = new ArrayList<>();
+            for (CodeItem codeItem : weatherConditionService.classify(
+                    measurement.getAirTemperature(), measurement.getWindSpeed(), measurement.getPhenomenon())) {
+                // The rules may have been reloaded after the code items were loaded, a code that is not among
+                // them is skipped rather than stored as a null join row.
+                CodeItem managed = codeItems.get(codeItem.getCode());
+                if (managed != null) {
+                    matched.add(managed);
                 }
             }
+            measurement.setCodeItems(matched);
+            measurement.setClassified(true);
+        }
+    }
+
+    /**
+     * Points the stations' latest measurement rows to the new measurements, in the ingest transaction.
+     * The in-memory index is updated once the transaction has been committed.
+     *
+     * @param measurements    saved measurements
+     * @param latestByStation stations' latest measurements
+     */
+    private void updateLatestMeasurements(List<WeatherMeasurement> measurements,
+                                          Map<Integer, WeatherStationLatest> latestByStation) {
+        List<WeatherMeasurementDto> updated = new ArrayList<>();
+        for (WeatherMeasurement measurement : measurements) {
+            Integer WMOcode = measurement.getWeatherStation().getWMOcode();
+            WeatherStationLatest latest = latestByStation.get(WMOcode);
+            if (latest == null) {
+                latest = latestRepository.save(new WeatherStationLatest(WMOcode, measurement));
+                latestByStation.put(WMOcode, latest);
+            } else if (latest.getWeatherMeasurement().getTimestamp().after(measurement.getTimestamp())) {
+                continue;
+            } else {
+                latest.setWeatherMeasurement(measurement);
+            }
+            updated.add(weatherMapper.toDto(measurement));
+        }
+
+        afterCommit(() -> updated.forEach(this::updateLatestIndex));
+    }
+
+    private void updateLatestIndex(WeatherMeasurementDto measurementDto) {
+        latestIndex.update(measurementDto);
+        weatherMetrics.recordLatestMeasurement(measurementDto);
+    }
+
+    /**
+     * Runs the action once the current transaction has been committed, or right away without a transaction.
+     * Actions run before after-commit event listeners, so they read the new measurements from memory.
+     *
+     * @param action action to run
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
         }
-        return measurements;
     }
 
     /**
@@ -1,21 +1,25 @@
 package com.fujitsu.trialtask.deliveryfee.service;
 
 
+import com.fujitsu.trialtask.deliveryfee.engine.RuleTables;
 import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
-import com.fujitsu.trialtask.deliveryfee.entity.WorkProhibition;
-import com.fujitsu.trialtask.deliveryfee.repository.WorkProhibitionRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class WorkProhibitionService {
-    private final WorkProhibitionRepository workProhibitionRepository;
+    private final RuleTableService ruleTableService;
 
-    public Optional<WorkProhibition> findWeatherProhibitionForVehicle(List<CodeItem> weatherCodes, Long vehicleId) {
-        return workProhibitionRepository.findByVehicleIdAndCodeItemIn(vehicleId, weatherCodes);
+    /**
+     * @param weatherCodes weather code items
+     * @param vehicleId    vehicle id
+     * @return true if any of the weather codes prohibits using the vehicle
+     */
+    public boolean isVehicleProhibited(List<CodeItem> weatherCodes, Long vehicleId) {
+        RuleTables ruleTables = ruleTableService.getRuleTables();
+        return ruleTables.isProhibited(vehicleId, ruleTables.toCodeMask(weatherCodes));
     }
 }
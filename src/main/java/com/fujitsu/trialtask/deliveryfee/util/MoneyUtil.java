@@ -0,0 +1,26 @@
+package com.fujitsu.trialtask.deliveryfee.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Conversions between fee amounts and cents. Amounts are stored as NUMERIC(16, 2), so they fit in cents exactly.
+ */
+public final class MoneyUtil {
+    private static final int SCALE = 2;
+
+    private MoneyUtil() {
+    }
+
+    /**
+     * @param amount fee amount with at most two decimal places
+     * @return amount in cents
+     * @throws ArithmeticException amount has more than two decimal places or does not fit in a long
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+}
@@ -0,0 +1,148 @@
+package com.fujitsu.trialtask.deliveryfee.util;
+
+import com.fujitsu.trialtask.deliveryfee.model.WeatherStationModel;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.function.IntPredicate;
+
+/**
+ * Streaming parser for the observations XML document. Reads one station element at a time and skips stations
+ * that are not wanted as soon as their WMO code is known, so memory use does not grow with the size of the feed.
+ */
+public final class WeatherObservationParser {
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private WeatherObservationParser() {
+    }
+
+    /**
+     * Receives the stations of an observation as they are parsed.
+     */
+    @FunctionalInterface
+    public interface StationHandler {
+        /**
+         * @param timeInSeconds observation timestamp
+         * @param station       station readings
+         */
+        void onStation(long timeInSeconds, WeatherStationModel station);
+    }
+
+    /**
+     * @param input         observations XML document
+     * @param stationFilter decides by WMO code which stations are passed to the handler
+     * @param handler       receives the wanted stations in document order
+     * @return number of stations passed to the handler
+     * @throws XMLStreamException document is malformed, has a malformed number or does not have an observation
+     *                            timestamp
+     */
+    public static int parse(InputStream input, IntPredicate stationFilter, StationHandler handler)
+            throws XMLStreamException {
+        XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(input);
+        try {
+            Long timeInSeconds = null;
+            int count = 0;
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                String element = reader.getLocalName();
+                if ("observations".equals(element)) {
+                    String timestamp = reader.getAttributeValue(null, "timestamp");
+                    try {
+                        timeInSeconds = parseLong(timestamp);
+                    } catch (NumberFormatException e) {
+                        throw new XMLStreamException("Malformed observation timestamp '" + timestamp + "'",
+                                reader.getLocation(), e);
+                    }
+                } else if ("station".equals(element)) {
+                    if (timeInSeconds == null) {
+                        throw new XMLStreamException("Observation timestamp is missing", reader.getLocation());
+                    }
+                    WeatherStationModel station = readStation(reader, stationFilter);
+                    if (station != null) {
+                        handler.onStation(timeInSeconds, station);
+                        count++;
+                    }
+                }
+            }
+            return count;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads the station element the reader is positioned at, up to and including its end tag.
+     *
+     * @return station readings, or null if the station has no WMO code or the filter rejects it
+     */
+    private static WeatherStationModel readStation(XMLStreamReader reader, IntPredicate stationFilter)
+            throws XMLStreamException {
+        WeatherStationModel station = new WeatherStationModel();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String element = reader.getLocalName();
+            String text = reader.getElementText().trim();
+            try {
+                switch (element) {
+                    case "name" -> station.setStationName(text);
+                    case "wmocode" -> {
+                        Integer WMOcode = text.isEmpty() ? null : Integer.valueOf(text);
+                        if (WMOcode == null || !stationFilter.test(WMOcode)) {
+                            skipToEndOfStation(reader);
+                            return null;
+                        }
+                        station.setWMOcode(WMOcode);
+                    }
+                    case "airtemperature" -> station.setAirTemperature(parseFloat(text));
+                    case "windspeed" -> station.setWindSpeed(parseFloat(text));
+                    case "phenomenon" -> station.setPhenomenon(text.isEmpty() ? null : text);
+                    default -> {
+                        // Readings that are not used.
+                    }
+                }
+            } catch (NumberFormatException e) {
+                throw new XMLStreamException("Malformed number '" + text + "' in " + element + " of station "
+                        + describe(station), reader.getLocation(), e);
+            }
+        }
+        return station.getWMOcode() == null ? null : station;
+    }
+
+    private static String describe(WeatherStationModel station) {
+        if (station.getWMOcode() != null) {
+            return String.valueOf(station.getWMOcode());
+        }
+        return station.getStationName() == null ? "without name" : station.getStationName();
+    }
+
+    private static void skipToEndOfStation(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static Float parseFloat(String text) {
+        return text.isEmpty() ? null : Float.valueOf(text);
+    }
+
+    private static Long parseLong(String text) {
+        return text == null || text.isBlank() ? null : Long.valueOf(text.trim());
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
@@ -0,0 +1,32 @@
+package com.fujitsu.trialtask.deliveryfee.util.enums;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Why a delivery fee request was answered without a fee, with the message and HTTP status of the answer.
+ */
+public enum RejectionReason {
+    INVALID_VEHICLE("Invalid vehicle ID", HttpStatus.BAD_REQUEST),
+    INVALID_CITY("Invalid city ID", HttpStatus.BAD_REQUEST),
+    /** Unfit weather conditions for the vehicle. **/
+    VEHICLE_FORBIDDEN("Usage of selected vehicle type is forbidden", HttpStatus.BAD_REQUEST),
+    VEHICLE_NOT_ALLOWED_IN_CITY("This type of vehicle is not allowed in this city", HttpStatus.BAD_REQUEST),
+    /** No weather data for the city's station. **/
+    WEATHER_UNAVAILABLE("Weather data is not available", HttpStatus.INTERNAL_SERVER_ERROR);
+
+    private final String message;
+    private final HttpStatus status;
+
+    RejectionReason(String message, HttpStatus status) {
+        this.message = message;
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
@@ -1,11 +1,39 @@
 package com.fujitsu.trialtask.deliveryfee.util.exception;
 
+import com.fujitsu.trialtask.deliveryfee.util.enums.RejectionReason;
+
+import java.util.EnumMap;
+import java.util.Map;
+
 /**
  * Thrown when client makes a bad request.
+ * Rejections are expected outcomes, so the exceptions carry no stack trace and one instance per reason is shared.
  */
 public class DeliveryFeeException extends RuntimeException {
+    private static final Map<RejectionReason, DeliveryFeeException> INSTANCES = new EnumMap<>(RejectionReason.class);
+
+    static {
+        for (RejectionReason reason : RejectionReason.values()) {
+            INSTANCES.put(reason, new DeliveryFeeException(reason));
+        }
+    }
+
+    private final RejectionReason reason;
+
+    private DeliveryFeeException(RejectionReason reason) {
+        super(reason.getMessage(), null, false, false);
+        this.reason = reason;
+    }
+
+    /**
+     * @param reason rejection reason
+     * @return the shared, stackless exception of the reason
+     */
+    public static DeliveryFeeException of(RejectionReason reason) {
+        return INSTANCES.get(reason);
+    }
 
-    public DeliveryFeeException(String message) {
-        super(message);
+    public RejectionReason getReason() {
+        return reason;
     }
 }
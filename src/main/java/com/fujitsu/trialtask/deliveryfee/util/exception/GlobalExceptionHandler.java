@@ -2,6 +2,7 @@ package com.fujitsu.trialtask.deliveryfee.util.exception;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
@@ -29,9 +30,8 @@ public final class GlobalExceptionHandler {
     }
 
     @ExceptionHandler({DeliveryFeeException.class})
-    @ResponseStatus(HttpStatus.BAD_REQUEST)
-    public @ResponseBody ExceptionResponse handleDeliveryFeeException(DeliveryFeeException e) {
-        return new ExceptionResponse(e.getMessage());
+    public ResponseEntity<ExceptionResponse> handleDeliveryFeeException(DeliveryFeeException e) {
+        return ResponseEntity.status(e.getReason().getStatus()).body(new ExceptionResponse(e.getMessage()));
     }
 
     @ExceptionHandler({WeatherRequestException.class})
@@ -2,12 +2,13 @@ package com.fujitsu.trialtask.deliveryfee.util.exception;
 
 /**
  * Thrown if there is no weather data in the database for a specific station.
+ * Carries no stack trace, it only reports missing data and is thrown for every request while the data is missing.
  */
 public class WeatherDataException extends RuntimeException {
     private final Integer WMOcode;
 
     public WeatherDataException(String message, Integer WMOcode) {
-        super(message);
+        super(message, null, false, false);
         this.WMOcode = WMOcode;
     }
 
@@ -0,0 +1,113 @@
+--liquibase formatted sql
+
+--changeset Markus Joasoo:17-10-2026-1 Weather measurement code items
+
+ALTER TABLE weather_measurement
+    ADD COLUMN IF NOT EXISTS classified BOOLEAN DEFAULT FALSE NOT NULL;
+
+CREATE TABLE IF NOT EXISTS weather_measurement_code_item
+(
+    weather_measurement_id BIGINT            NOT NULL,
+    code_item              CHARACTER VARYING NOT NULL,
+
+    CONSTRAINT pk_weather_measurement_code_item PRIMARY KEY (weather_measurement_id, code_item),
+    CONSTRAINT fk_weather_measurement_code_item_weather_measurement_id FOREIGN KEY (weather_measurement_id) REFERENCES weather_measurement (id),
+    CONSTRAINT fk_weather_measurement_code_item_code_item FOREIGN KEY (code_item) REFERENCES code_item (code)
+);
+
+--changeset Markus Joasoo:17-10-2026-2 Latest weather measurement per station
+
+CREATE INDEX IF NOT EXISTS idx_weather_measurement_station_timestamp
+    ON weather_measurement (weather_station_wmo_code, timestamp);
+
+CREATE TABLE IF NOT EXISTS weather_station_latest
+(
+    weather_station_wmo_code INTEGER PRIMARY KEY,
+    weather_measurement_id   BIGINT NOT NULL,
+
+    CONSTRAINT fk_weather_station_latest_weather_station_wmo_code FOREIGN KEY (weather_station_wmo_code) REFERENCES weather_station (wmo_code),
+    CONSTRAINT fk_weather_station_latest_weather_measurement_id FOREIGN KEY (weather_measurement_id) REFERENCES weather_measurement (id)
+);
+
+INSERT INTO weather_station_latest (weather_station_wmo_code, weather_measurement_id)
+SELECT wm.weather_station_wmo_code, MAX(wm.id)
+FROM weather_measurement wm
+WHERE wm.timestamp = (SELECT MAX(latest.timestamp)
+                      FROM weather_measurement latest
+                      WHERE latest.weather_station_wmo_code = wm.weather_station_wmo_code)
+GROUP BY wm.weather_station_wmo_code;
+
+--changeset Markus Joasoo:17-10-2026-3 Unique weather measurement per station and timestamp
+
+UPDATE weather_station_latest wsl
+SET weather_measurement_id = (SELECT MIN(wm.id)
+                              FROM weather_measurement wm
+                                       JOIN weather_measurement latest ON latest.id = wsl.weather_measurement_id
+                              WHERE wm.weather_station_wmo_code = latest.weather_station_wmo_code
+                                AND wm.timestamp = latest.timestamp);
+
+DELETE
+FROM weather_measurement_code_item
+WHERE weather_measurement_id NOT IN (SELECT MIN(id)
+                                     FROM weather_measurement
+                                     GROUP BY weather_station_wmo_code, timestamp);
+
+DELETE
+FROM weather_measurement
+WHERE id NOT IN (SELECT MIN(id)
+                 FROM weather_measurement
+                 GROUP BY weather_station_wmo_code, timestamp);
+
+DROP INDEX IF EXISTS idx_weather_measurement_station_timestamp;
+
+ALTER TABLE weather_measurement
+    ADD CONSTRAINT uq_weather_measurement_station_timestamp UNIQUE (weather_station_wmo_code, timestamp);
+
+--changeset Markus Joasoo:17-10-2026-4 Weather measurement id sequence
+
+-- The pooled optimizer hands out the 50 ids up to the sequence value, so the first value has to be at least 50 above
+-- the existing ids.
+CREATE SEQUENCE IF NOT EXISTS weather_measurement_seq START WITH 50 INCREMENT BY 50;
+
+ALTER SEQUENCE weather_measurement_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM weather_measurement);
+
+--changeset Markus Joasoo:17-10-2026-5 Weather measurement aggregates
+
+CREATE TABLE IF NOT EXISTS weather_measurement_hourly
+(
+    id                       BIGSERIAL PRIMARY KEY,
+    period_start             TIMESTAMP NOT NULL,
+    weather_station_wmo_code INTEGER   NOT NULL,
+    measurement_count        INTEGER   NOT NULL,
+    min_air_temperature      DOUBLE PRECISION,
+    max_air_temperature      DOUBLE PRECISION,
+    avg_air_temperature      DOUBLE PRECISION,
+    min_wind_speed           DOUBLE PRECISION,
+    max_wind_speed           DOUBLE PRECISION,
+    avg_wind_speed           DOUBLE PRECISION,
+    phenomenon               CHARACTER VARYING,
+
+    CONSTRAINT uq_weather_measurement_hourly_station_period UNIQUE (weather_station_wmo_code, period_start),
+    CONSTRAINT fk_weather_measurement_hourly_weather_station_wmo_code FOREIGN KEY (weather_station_wmo_code) REFERENCES weather_station (wmo_code)
+);
+
+CREATE TABLE IF NOT EXISTS weather_measurement_daily
+(
+    id                       BIGSERIAL PRIMARY KEY,
+    period_start             TIMESTAMP NOT NULL,
+    weather_station_wmo_code INTEGER   NOT NULL,
+    measurement_count        INTEGER   NOT NULL,
+    min_air_temperature      DOUBLE PRECISION,
+    max_air_temperature      DOUBLE PRECISION,
+    avg_air_temperature      DOUBLE PRECISION,
+    min_wind_speed           DOUBLE PRECISION,
+    max_wind_speed           DOUBLE PRECISION,
+    avg_wind_speed           DOUBLE PRECISION,
+    phenomenon               CHARACTER VARYING,
+
+    CONSTRAINT uq_weather_measurement_daily_station_period UNIQUE (weather_station_wmo_code, period_start),
+    CONSTRAINT fk_weather_measurement_daily_weather_station_wmo_code FOREIGN KEY (weather_station_wmo_code) REFERENCES weather_station (wmo_code)
+);
+
+CREATE INDEX IF NOT EXISTS idx_weather_measurement_timestamp
+    ON weather_measurement (timestamp);
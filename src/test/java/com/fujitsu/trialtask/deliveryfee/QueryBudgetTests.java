@@ -0,0 +1,223 @@
+package com.fujitsu.trialtask.deliveryfee;
+
+import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeRequestDto;
+import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeResultDto;
+import com.fujitsu.trialtask.deliveryfee.model.WeatherStationModel;
+import com.fujitsu.trialtask.deliveryfee.provider.WeatherObservation;
+import com.fujitsu.trialtask.deliveryfee.provider.WeatherProvider;
+import com.fujitsu.trialtask.deliveryfee.service.DeliveryFeeService;
+import com.fujitsu.trialtask.deliveryfee.service.WeatherService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Budgets for the number of SQL statements and entity loads of the fee path and the weather ingest, counted with
+ * Hibernate statistics against the seeded in-memory database. The fee snapshot is disabled, so fees are calculated
+ * from the database. Every budget is measured warm: the rules are loaded, the stations' latest measurements
+ * are in memory and the reference data is in the second-level and query cache.
+ * <p>
+ * A failing budget usually means a new query per request or per row, e.g. an eager association loaded with a
+ * select of its own. Raise a budget only together with the change that needs it.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-budget;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.fujitsu.trialtask.deliveryfee.QueryBudgetTests$RecordingStatementInspector",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+        "weather.service.cron-expression=-",
+        "weather.retention.cron-expression=-",
+        "weather.provider.ilmateenistus.enabled=false",
+        "delivery.fee.snapshot.enabled=false"
+})
+class QueryBudgetTests {
+    /** Vehicle check, city's station and base fee are projections served from the query cache, no entities are loaded. **/
+    private static final long FEE_MAX_STATEMENTS = 0;
+    private static final long FEE_MAX_ENTITY_LOADS = 0;
+    /** Vehicle ids, cities' stations and base fees are projections served from the query cache, no entities are loaded. **/
+    private static final long BATCH_MAX_STATEMENTS = 0;
+    private static final long BATCH_MAX_ENTITY_LOADS = 0;
+    /**
+     * Latest measurements, existing measurements, batched inserts of the measurements and their code items,
+     * batched update of the latest measurements. Stations and code items are served from the caches.
+     */
+    private static final long INGEST_MAX_STATEMENTS = 10;
+    private static final long INGEST_MAX_ENTITY_LOADS = 20;
+
+    @Autowired
+    private DeliveryFeeService deliveryService;
+    @Autowired
+    private WeatherService weatherService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @TestConfiguration
+    static class HourlyWeatherProviderConfiguration {
+        @Bean
+        WeatherProvider hourlyWeatherProvider() {
+            return new HourlyWeatherProvider();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        weatherService.updateWeather();
+        deliveryService.getDeliveryFee(1L, 2L);
+        RecordingStatementInspector.statements.clear();
+    }
+
+    @Test
+    void getDeliveryFee_WarmRulesAndWeather_WithinBudget() {
+        // when
+        statistics.clear();
+        deliveryService.getDeliveryFee(1L, 2L);
+
+        // then
+        assertBudget(FEE_MAX_STATEMENTS, FEE_MAX_ENTITY_LOADS);
+    }
+
+    @Test
+    void getLatestMeasurementFromStation_InMemory_NoSessionOpened() {
+        // when
+        statistics.clear();
+        weatherService.getLatestMeasurementFromStation(26038);
+
+        // then
+        assertEquals(0, statistics.getSessionOpenCount());
+        assertBudget(0, 0);
+    }
+
+    @Test
+    void getDeliveryFees_AllSeededPairs_WithinBudget() {
+        // given
+        List<DeliveryFeeRequestDto> requests = new ArrayList<>();
+        for (long cityId = 1; cityId <= 3; cityId++) {
+            for (long vehicleId = 1; vehicleId <= 3; vehicleId++) {
+                requests.add(new DeliveryFeeRequestDto(cityId, vehicleId));
+            }
+        }
+
+        // when
+        statistics.clear();
+        List<DeliveryFeeResultDto> results = deliveryService.getDeliveryFees(requests);
+
+        // then
+        assertEquals(requests.size(), results.size());
+        assertBudget(BATCH_MAX_STATEMENTS, BATCH_MAX_ENTITY_LOADS);
+    }
+
+    @Test
+    void updateWeather_NewObservationForAllStations_WithinBudget() {
+        // when
+        statistics.clear();
+        weatherService.updateWeather();
+
+        // then
+        assertBudget(INGEST_MAX_STATEMENTS, INGEST_MAX_ENTITY_LOADS);
+    }
+
+    @Test
+    void updateWeather_NewObservationForAllStations_InsertsSentInBatches() {
+        // when
+        statistics.clear();
+        weatherService.updateWeather();
+
+        // then
+        // A statement is prepared once per JDBC batch, not once per row.
+        assertEquals(HourlyWeatherProvider.STATIONS.length, statistics.getEntityInsertCount());
+        assertEquals(1, countStatements("insert into weather_measurement "));
+        // Every measurement has two code items, AT_MINUS_TEN_TO_ZERO and WP_SNOW_SLEET.
+        long codeItemInserts = countStatements("insert into weather_measurement_code_item ");
+        assertTrue(codeItemInserts >= 1 && codeItemInserts < 2L * HourlyWeatherProvider.STATIONS.length,
+                "Expected code items to be inserted in batches but " + codeItemInserts + " statements were prepared");
+    }
+
+    private static long countStatements(String prefix) {
+        return RecordingStatementInspector.statements.stream()
+                .filter(sql -> sql.toLowerCase().startsWith(prefix))
+                .count();
+    }
+
+    private void assertBudget(long maxStatements, long maxEntityLoads) {
+        long statements = statistics.getPrepareStatementCount();
+        long entityLoads = statistics.getEntityLoadCount();
+        assertTrue(statements <= maxStatements,
+                "Expected at most " + maxStatements + " statements but " + statements + " were executed");
+        assertTrue(entityLoads <= maxEntityLoads,
+                "Expected at most " + maxEntityLoads + " entity loads but " + entityLoads + " entities were loaded");
+    }
+
+    /**
+     * Records the SQL of every statement Hibernate prepares.
+     */
+    public static class RecordingStatementInspector implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    /**
+     * Returns readings for all seeded stations, an hour later on every fetch, so every ingest stores new measurements.
+     */
+    static class HourlyWeatherProvider implements WeatherProvider {
+        private static final int[] STATIONS = {26038, 26242, 41803};
+        private static final Instant START = Instant.now().truncatedTo(ChronoUnit.HOURS).minus(1000, ChronoUnit.HOURS);
+
+        private final AtomicInteger fetches = new AtomicInteger();
+
+        @Override
+        public String getName() {
+            return "hourly";
+        }
+
+        @Override
+        public Duration getTimeout() {
+            return Duration.ofSeconds(5);
+        }
+
+        @Override
+        public WeatherObservation fetch(IntPredicate stationFilter) {
+            Timestamp timestamp = Timestamp.from(START.plus(fetches.getAndIncrement(), ChronoUnit.HOURS));
+            List<WeatherObservation.Reading> readings = new ArrayList<>();
+            for (int WMOcode : STATIONS) {
+                if (stationFilter.test(WMOcode)) {
+                    WeatherStationModel station = new WeatherStationModel();
+                    station.setWMOcode(WMOcode);
+                    station.setAirTemperature(-2.1F);
+                    station.setWindSpeed(4.7F);
+                    station.setPhenomenon("Light snow shower");
+                    readings.add(new WeatherObservation.Reading(timestamp, station));
+                }
+            }
+            return new WeatherObservation(readings);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.fujitsu.trialtask.deliveryfee;
+
+import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
+import com.fujitsu.trialtask.deliveryfee.entity.SevereWeatherCondition;
+import com.fujitsu.trialtask.deliveryfee.entity.Vehicle;
+import com.fujitsu.trialtask.deliveryfee.event.RulesChangedEvent;
+import com.fujitsu.trialtask.deliveryfee.repository.SevereWeatherConditionRepository;
+import com.fujitsu.trialtask.deliveryfee.repository.VehicleRepository;
+import com.fujitsu.trialtask.deliveryfee.service.DeliveryFeeService;
+import com.fujitsu.trialtask.deliveryfee.service.SevereWeatherConditionService;
+import com.fujitsu.trialtask.deliveryfee.util.enums.RejectionReason;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Changes to reference and rule data written through the application rebuild the in-memory rules and the fee
+ * snapshot once they are committed.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rules-changed;DB_CLOSE_DELAY=-1",
+        "weather.service.cron-expression=-",
+        "weather.retention.cron-expression=-",
+        "weather.provider.ilmateenistus.enabled=false",
+        "delivery.fee.snapshot.enabled=true"
+})
+class RulesChangedTests {
+    @Autowired
+    private DeliveryFeeService deliveryService;
+    @Autowired
+    private SevereWeatherConditionService weatherConditionService;
+    @Autowired
+    private VehicleRepository vehicleRepository;
+    @Autowired
+    private SevereWeatherConditionRepository weatherConditionRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private RulesChangedCounter rulesChangedCounter;
+
+    @TestConfiguration
+    static class RulesChangedCounterConfiguration {
+        @Bean
+        RulesChangedCounter rulesChangedCounter() {
+            return new RulesChangedCounter();
+        }
+    }
+
+    @Test
+    void saveVehicle_NewVehicle_InFeeSnapshot() {
+        // given
+        Long vehicleId = 4L;
+        assertEquals(RejectionReason.INVALID_VEHICLE, deliveryService.getDeliveryFeeOutcome(1L, vehicleId).rejection());
+
+        // when
+        vehicleRepository.save(new Vehicle(vehicleId, "Drone"));
+
+        // then
+        assertNotEquals(RejectionReason.INVALID_VEHICLE, deliveryService.getDeliveryFeeOutcome(1L, vehicleId).rejection());
+    }
+
+    @Test
+    void savePhenomena_PhenomenonAddedToCondition_ClassifiedWithNewPhenomenon() {
+        // given
+        assertEquals(List.of(), codes(weatherConditionService.classify(null, null, "Drizzle")));
+
+        // when
+        // Only the element collection changes, the condition itself stays the same.
+        transactionTemplate.executeWithoutResult(status -> weatherConditionRepository.findAllWithPhenomena().stream()
+                .filter(condition -> condition.getCodeItem().getCode().equals("WP_RAIN"))
+                .map(SevereWeatherCondition::getPhenomena)
+                .forEach(phenomena -> phenomena.add("drizzle")));
+
+        // then
+        assertEquals(List.of("WP_RAIN"), codes(weatherConditionService.classify(null, null, "Drizzle")));
+    }
+
+    @Test
+    void saveVehicles_ManyVehiclesInOneTransaction_AnnouncedOnce() {
+        // given
+        int announced = rulesChangedCounter.get();
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> vehicleRepository.saveAll(List.of(
+                new Vehicle(5L, "Cargo bike"), new Vehicle(6L, "Van"), new Vehicle(7L, "Truck"))));
+
+        // then
+        assertEquals(announced + 1, rulesChangedCounter.get());
+    }
+
+    private static List<String> codes(List<CodeItem> codeItems) {
+        return codeItems.stream().map(CodeItem::getCode).toList();
+    }
+
+    /**
+     * Counts the rules changed events that reach listeners after the commit.
+     */
+    static class RulesChangedCounter {
+        private final AtomicInteger events = new AtomicInteger();
+
+        @TransactionalEventListener(classes = RulesChangedEvent.class, fallbackExecution = true)
+        public void onRulesChanged() {
+            events.incrementAndGet();
+        }
+
+        int get() {
+            return events.get();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.fujitsu.trialtask.deliveryfee;
+
+import com.fujitsu.trialtask.deliveryfee.model.WeatherStationModel;
+import com.fujitsu.trialtask.deliveryfee.provider.WeatherObservation;
+import com.fujitsu.trialtask.deliveryfee.provider.WeatherProvider;
+import com.fujitsu.trialtask.deliveryfee.service.DeliveryFeeService;
+import com.fujitsu.trialtask.deliveryfee.service.WeatherService;
+import com.fujitsu.trialtask.deliveryfee.util.exception.DeliveryFeeException;
+import com.fujitsu.trialtask.deliveryfee.util.exception.WeatherDataException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The single-query fee path has to give the same fee or rejection as the in-memory path for every pair,
+ * both for measurements classified at ingest and for measurements matched against the rules in the query.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:single-query;DB_CLOSE_DELAY=-1",
+        "weather.service.cron-expression=-",
+        "weather.retention.cron-expression=-",
+        "weather.provider.ilmateenistus.enabled=false",
+        "delivery.fee.snapshot.enabled=false"
+})
+class SingleQueryFeeTests {
+    private static final long[] CITY_IDS = {1, 2, 3, 99};
+    private static final long[] VEHICLE_IDS = {1, 2, 3, 99};
+
+    @Autowired
+    private DeliveryFeeService deliveryService;
+    @Autowired
+    private WeatherService weatherService;
+    @Autowired
+    private ScenarioWeatherProvider weatherProvider;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TestConfiguration
+    static class ScenarioWeatherProviderConfiguration {
+        @Bean
+        ScenarioWeatherProvider scenarioWeatherProvider() {
+            return new ScenarioWeatherProvider();
+        }
+    }
+
+    @Test
+    void getDeliveryFee_SingleQuery_SameOutcomesAsInMemoryPath() {
+        assertSameOutcomes(-2.1F, 4.7F, "Light snow shower");
+        assertSameOutcomes(-15F, 15F, "Moderate rain");
+        assertSameOutcomes(5F, 25F, "Thunder");
+        assertSameOutcomes(-10F, 20F, "Clear");
+        assertSameOutcomes(0F, 10F, "Glaze");
+        assertSameOutcomes(null, null, null);
+    }
+
+    private void assertSameOutcomes(Float airTemperature, Float windSpeed, String phenomenon) {
+        // given
+        weatherProvider.next(airTemperature, windSpeed, phenomenon);
+        weatherService.updateWeather();
+        List<String> expected = getOutcomes(false);
+
+        // when
+        List<String> classifiedAtIngest = getOutcomes(true);
+        // The in-memory path keeps using the codes stored at ingest, the query matches against the rules.
+        jdbcTemplate.update("UPDATE weather_measurement SET classified = FALSE");
+        List<String> matchedInQuery = getOutcomes(true);
+
+        // then
+        assertEquals(expected, classifiedAtIngest);
+        assertEquals(expected, matchedInQuery);
+    }
+
+    private List<String> getOutcomes(boolean singleQuery) {
+        ReflectionTestUtils.setField(deliveryService, "singleQueryEnabled", singleQuery);
+        List<String> outcomes = new ArrayList<>();
+        for (long cityId : CITY_IDS) {
+            for (long vehicleId : VEHICLE_IDS) {
+                try {
+                    outcomes.add(deliveryService.getDeliveryFee(cityId, vehicleId).toString());
+                } catch (DeliveryFeeException e) {
+                    outcomes.add(e.getMessage());
+                } catch (WeatherDataException e) {
+                    outcomes.add(e.getMessage() + " " + e.getWMOcode());
+                }
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Returns the same readings for all seeded stations, an hour later on every fetch.
+     */
+    static class ScenarioWeatherProvider implements WeatherProvider {
+        private static final int[] STATIONS = {26038, 26242, 41803};
+        private static final Instant START = Instant.now().truncatedTo(ChronoUnit.HOURS).minus(1000, ChronoUnit.HOURS);
+
+        private final AtomicInteger fetches = new AtomicInteger();
+        private volatile WeatherStationModel readings = new WeatherStationModel();
+
+        void next(Float airTemperature, Float windSpeed, String phenomenon) {
+            WeatherStationModel station = new WeatherStationModel();
+            station.setAirTemperature(airTemperature);
+            station.setWindSpeed(windSpeed);
+            station.setPhenomenon(phenomenon);
+            readings = station;
+        }
+
+        @Override
+        public String getName() {
+            return "scenario";
+        }
+
+        @Override
+        public Duration getTimeout() {
+            return Duration.ofSeconds(5);
+        }
+
+        @Override
+        public WeatherObservation fetch(IntPredicate stationFilter) {
+            Timestamp timestamp = Timestamp.from(START.plus(fetches.getAndIncrement(), ChronoUnit.HOURS));
+            List<WeatherObservation.Reading> stationReadings = new ArrayList<>();
+            for (int WMOcode : STATIONS) {
+                if (stationFilter.test(WMOcode)) {
+                    WeatherStationModel station = new WeatherStationModel();
+                    station.setWMOcode(WMOcode);
+                    station.setAirTemperature(readings.getAirTemperature());
+                    station.setWindSpeed(readings.getWindSpeed());
+                    station.setPhenomenon(readings.getPhenomenon());
+                    stationReadings.add(new WeatherObservation.Reading(timestamp, station));
+                }
+            }
+            return new WeatherObservation(stationReadings);
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.fujitsu.trialtask.deliveryfee;
+
+import com.fujitsu.trialtask.deliveryfee.dto.WeatherMeasurementDto;
+import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
+import com.fujitsu.trialtask.deliveryfee.model.WeatherStationModel;
+import com.fujitsu.trialtask.deliveryfee.provider.WeatherObservation;
+import com.fujitsu.trialtask.deliveryfee.provider.WeatherProvider;
+import com.fujitsu.trialtask.deliveryfee.service.WeatherService;
+import com.fujitsu.trialtask.deliveryfee.util.exception.WeatherRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The weather ingest against the seeded in-memory database, with stub providers instead of the weather feed.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:weather-ingest;DB_CLOSE_DELAY=-1",
+        "weather.service.cron-expression=-",
+        "weather.service.catch-up-interval=PT0S",
+        "weather.retention.cron-expression=-",
+        "weather.provider.ilmateenistus.enabled=false",
+        "delivery.fee.snapshot.enabled=false"
+})
+class WeatherIngestTests {
+    private static final int TALLINN = 26038;
+    private static final int[] STATIONS = {TALLINN, 26242, 41803};
+    private static final Instant START = Instant.now().truncatedTo(ChronoUnit.HOURS).minus(2000, ChronoUnit.HOURS);
+    private static final long HOUR_MILLIS = Duration.ofHours(1).toMillis();
+    private static final AtomicInteger hours = new AtomicInteger();
+
+    @Autowired
+    private WeatherService weatherService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private StubWeatherProvider primaryProvider;
+    @Autowired
+    private StubWeatherProvider secondaryProvider;
+
+    @TestConfiguration
+    static class StubWeatherProviderConfiguration {
+        @Bean
+        StubWeatherProvider primaryProvider() {
+            return new StubWeatherProvider("primary");
+        }
+
+        @Bean
+        StubWeatherProvider secondaryProvider() {
+            return new StubWeatherProvider("secondary");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        primaryProvider.reset();
+        secondaryProvider.reset();
+    }
+
+    @Test
+    void updateWeather_NewReadings_ClassifiedAndCodesStoredAtIngest() {
+        // given
+        Timestamp timestamp = nextHour();
+        primaryProvider.willReturn(timestamp, -2.1F, 4.7F, "Light snow shower");
+
+        // when
+        weatherService.updateWeather();
+
+        // then
+        Long id = findMeasurementId(TALLINN, timestamp);
+        assertTrue(jdbcTemplate.queryForObject(
+                "SELECT classified FROM weather_measurement WHERE id = ?", Boolean.class, id));
+        assertEquals(List.of("AT_MINUS_TEN_TO_ZERO", "WP_SNOW_SLEET"), jdbcTemplate.queryForList(
+                "SELECT code_item FROM weather_measurement_code_item WHERE weather_measurement_id = ? ORDER BY code_item",
+                String.class, id));
+        WeatherMeasurementDto latest = weatherService.getLatestMeasurementFromStation(TALLINN);
+        assertTrue(latest.isClassified());
+        assertEquals(List.of("AT_MINUS_TEN_TO_ZERO", "WP_SNOW_SLEET"),
+                latest.getCodeItems().stream().map(CodeItem::getCode).sorted().toList());
+    }
+
+    @Test
+    void updateWeather_ReadingsAtOrBeforeLatest_NothingWritten() {
+        // given
+        Timestamp latest = nextHour();
+        primaryProvider.willReturn(latest, 5F, 3F, "Clear");
+        weatherService.updateWeather();
+        int measurements = countMeasurements();
+
+        // when
+        primaryProvider.willReturn(latest, 6F, 3F, "Clear");
+        weatherService.updateWeather();
+        primaryProvider.willReturn(new Timestamp(latest.getTime() - HOUR_MILLIS), 7F, 3F, "Clear");
+        weatherService.updateWeather();
+
+        // then
+        assertEquals(measurements, countMeasurements());
+        assertEquals(5F, weatherService.getLatestMeasurementFromStation(TALLINN).getAirTemperature());
+    }
+
+    @Test
+    void updateWeather_MeasurementExistsForStationAndTimestamp_ReadingsUpdatedInPlace() {
+        // given
+        Timestamp older = nextHour();
+        Timestamp newer = nextHour();
+        primaryProvider.willReturn(older, 5F, 3F, "Clear");
+        weatherService.updateWeather();
+        primaryProvider.willReturn(newer, 5F, 3F, "Clear");
+        weatherService.updateWeather();
+        Long newerId = findMeasurementId(TALLINN, newer);
+        // The station's latest measurement points back to the older one, so the newer reading is ingested again.
+        jdbcTemplate.update("UPDATE weather_station_latest SET weather_measurement_id = ? WHERE weather_station_wmo_code = ?",
+                findMeasurementId(TALLINN, older), TALLINN);
+        int measurements = countMeasurements();
+
+        // when
+        primaryProvider.willReturn(newer, -15F, 3F, "Clear");
+        weatherService.updateWeather();
+
+        // then
+        assertEquals(measurements, countMeasurements());
+        assertEquals(-15F, jdbcTemplate.queryForObject(
+                "SELECT air_temperature FROM weather_measurement WHERE id = ?", Float.class, newerId));
+        assertEquals(newerId, jdbcTemplate.queryForObject(
+                "SELECT weather_measurement_id FROM weather_station_latest WHERE weather_station_wmo_code = ?",
+                Long.class, TALLINN));
+        assertEquals(-15F, weatherService.getLatestMeasurementFromStation(TALLINN).getAirTemperature());
+    }
+
+    @Test
+    void updateWeather_NotModified_NothingWrittenAndValidatorsKept() {
+        // given
+        primaryProvider.willReturn(nextHour(), 5F, 3F, "Clear");
+        weatherService.updateWeather();
+        int measurements = countMeasurements();
+        int ingested = primaryProvider.getIngestedCount();
+
+        // when
+        primaryProvider.reset();
+        weatherService.updateWeather();
+
+        // then
+        assertEquals(measurements, countMeasurements());
+        assertEquals(ingested, primaryProvider.getIngestedCount());
+    }
+
+    @Test
+    void updateWeather_ProvidersWithDifferentTimes_NewestReadingPerStationStored() {
+        // given
+        Timestamp older = nextHour();
+        Timestamp newer = nextHour();
+        primaryProvider.willReturn(older, 5F, 3F, "Clear");
+        secondaryProvider.willReturn(newer, -5F, 3F, "Clear");
+        int measurements = countMeasurements();
+
+        // when
+        weatherService.updateWeather();
+
+        // then
+        assertEquals(measurements + STATIONS.length, countMeasurements());
+        WeatherMeasurementDto latest = weatherService.getLatestMeasurementFromStation(TALLINN);
+        assertEquals(newer, latest.getTimestamp());
+        assertEquals(-5F, latest.getAirTemperature());
+    }
+
+    @Test
+    void updateWeather_OneProviderFails_OthersIngested() {
+        // given
+        Timestamp timestamp = nextHour();
+        primaryProvider.willFail();
+        secondaryProvider.willReturn(timestamp, 5F, 3F, "Clear");
+
+        // when
+        weatherService.updateWeather();
+
+        // then
+        assertEquals(timestamp, weatherService.getLatestMeasurementFromStation(TALLINN).getTimestamp());
+    }
+
+    @Test
+    void updateWeather_OneProviderTimesOut_OthersIngestedWithoutWaiting() {
+        // given
+        Timestamp timestamp = nextHour();
+        primaryProvider.willHang(Duration.ofMillis(200));
+        secondaryProvider.willReturn(timestamp, 5F, 3F, "Clear");
+
+        // when
+        long started = System.nanoTime();
+        weatherService.updateWeather();
+
+        // then
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).compareTo(Duration.ofSeconds(4)) < 0);
+        assertEquals(timestamp, weatherService.getLatestMeasurementFromStation(TALLINN).getTimestamp());
+    }
+
+    @Test
+    void updateWeather_OneProviderFailsOthersNotModified_WeatherRequestException() {
+        // given
+        primaryProvider.willFail();
+        int measurements = countMeasurements();
+
+        // when
+        assertThrows(WeatherRequestException.class, () -> weatherService.updateWeather());
+
+        // then
+        assertEquals(measurements, countMeasurements());
+    }
+
+    @Test
+    void updateWeather_AllProvidersFail_WeatherRequestException() {
+        // given
+        primaryProvider.willFail();
+        secondaryProvider.willFail();
+        int measurements = countMeasurements();
+
+        // when
+        assertThrows(WeatherRequestException.class, () -> weatherService.updateWeather());
+
+        // then
+        assertEquals(measurements, countMeasurements());
+    }
+
+    @Test
+    void updateWeather_MoreMeasurementsThanOneIdAllocation_IdsUniqueAndBelowSequence() {
+        // given
+        // The pooled optimizer takes 50 ids per sequence call, so the ingests span several allocations.
+        int ingests = 50 / STATIONS.length + 2;
+        int measurements = countMeasurements();
+
+        // when
+        for (int i = 0; i < ingests; i++) {
+            primaryProvider.willReturn(nextHour(), 5F, 3F, "Clear");
+            weatherService.updateWeather();
+        }
+
+        // then
+        assertEquals(measurements + ingests * STATIONS.length, countMeasurements());
+        assertEquals(countMeasurements(), jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT id) FROM weather_measurement", Integer.class));
+        // The sequence was restarted above the existing ids and every allocation ends at the sequence value.
+        long nextSequenceValue = jdbcTemplate.queryForObject(
+                "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE LOWER(SEQUENCE_NAME) = 'weather_measurement_seq'",
+                Long.class);
+        assertTrue(jdbcTemplate.queryForObject("SELECT MAX(id) FROM weather_measurement", Long.class) < nextSequenceValue);
+    }
+
+    private int countMeasurements() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM weather_measurement", Integer.class);
+    }
+
+    private Long findMeasurementId(int WMOcode, Timestamp timestamp) {
+        return jdbcTemplate.queryForObject(
+                "SELECT id FROM weather_measurement WHERE weather_station_wmo_code = ? AND timestamp = ?",
+                Long.class, WMOcode, timestamp);
+    }
+
+    /**
+     * @return a timestamp after every one used so far, so each test starts from new measurements
+     */
+    private static Timestamp nextHour() {
+        return Timestamp.from(START.plus(hours.addAndGet(10), ChronoUnit.HOURS));
+    }
+
+    /**
+     * Returns the observation it was given for all seeded stations, or not modified until it is given one.
+     */
+    static class StubWeatherProvider implements WeatherProvider {
+        private final String name;
+        private volatile WeatherObservation next = WeatherObservation.notModified();
+        private volatile boolean failing;
+        private volatile Duration hangingTimeout;
+        private final AtomicInteger ingested = new AtomicInteger();
+
+        StubWeatherProvider(String name) {
+            this.name = name;
+        }
+
+        void willReturn(Timestamp timestamp, Float airTemperature, Float windSpeed, String phenomenon) {
+            List<WeatherObservation.Reading> readings = new ArrayList<>();
+            for (int WMOcode : STATIONS) {
+                WeatherStationModel station = new WeatherStationModel();
+                station.setWMOcode(WMOcode);
+                station.setAirTemperature(airTemperature);
+                station.setWindSpeed(windSpeed);
+                station.setPhenomenon(phenomenon);
+                readings.add(new WeatherObservation.Reading(timestamp, station));
+            }
+            next = new WeatherObservation(readings);
+        }
+
+        void willFail() {
+            failing = true;
+        }
+
+        /**
+         * Never completes the fetch, so it is abandoned after the given timeout.
+         */
+        void willHang(Duration timeout) {
+            hangingTimeout = timeout;
+        }
+
+        void reset() {
+            next = WeatherObservation.notModified();
+            failing = false;
+            hangingTimeout = null;
+        }
+
+        int getIngestedCount() {
+            return ingested.get();
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Duration getTimeout() {
+            Duration timeout = hangingTimeout;
+            return timeout == null ? Duration.ofSeconds(5) : timeout;
+        }
+
+        @Override
+        public CompletableFuture<WeatherObservation> fetchAsync(IntPredicate stationFilter, Executor executor) {
+            if (hangingTimeout != null) {
+                return new CompletableFuture<>();
+            }
+            return WeatherProvider.super.fetchAsync(stationFilter, executor);
+        }
+
+        @Override
+        public WeatherObservation fetch(IntPredicate stationFilter) {
+            if (failing) {
+                throw new WeatherRequestException(name + " is unavailable");
+            }
+            WeatherObservation observation = next;
+            if (!observation.isModified()) {
+                return observation;
+            }
+            return new WeatherObservation(observation.readings().stream()
+                    .filter(reading -> stationFilter.test(reading.station().getWMOcode()))
+                    .toList());
+        }
+
+        @Override
+        public void onIngested() {
+            ingested.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.fujitsu.trialtask.deliveryfee;
+
+import com.fujitsu.trialtask.deliveryfee.model.WeatherStationModel;
+import com.fujitsu.trialtask.deliveryfee.provider.WeatherObservation;
+import com.fujitsu.trialtask.deliveryfee.provider.WeatherProvider;
+import com.fujitsu.trialtask.deliveryfee.service.WeatherRetentionService;
+import com.fujitsu.trialtask.deliveryfee.service.WeatherService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The retention job against the seeded in-memory database. The delete chunk is smaller than the number of rolled up
+ * rows, so every roll-up deletes in several chunks.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:weather-retention;DB_CLOSE_DELAY=-1",
+        "weather.service.cron-expression=-",
+        "weather.retention.cron-expression=-",
+        "weather.retention.delete-chunk-size=2",
+        "weather.provider.ilmateenistus.enabled=false",
+        "delivery.fee.snapshot.enabled=false"
+})
+class WeatherRetentionTests {
+    private static final int TALLINN = 26038;
+    private static final int TARTU = 26242;
+    private static final int[] STATIONS = {TALLINN, TARTU, 41803};
+    private static final Instant HOUR = Instant.now().truncatedTo(ChronoUnit.DAYS).minus(400, ChronoUnit.DAYS);
+
+    @Autowired
+    private WeatherService weatherService;
+    @Autowired
+    private WeatherRetentionService retentionService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private SettableWeatherProvider weatherProvider;
+
+    @TestConfiguration
+    static class SettableWeatherProviderConfiguration {
+        @Bean
+        SettableWeatherProvider settableWeatherProvider() {
+            return new SettableWeatherProvider();
+        }
+    }
+
+    @Test
+    void compactHistory_MeasurementsOfOneHour_RolledUpAndMergedWithLatestKept() {
+        // given
+        ingest(HOUR, -5F);
+        ingest(HOUR.plus(20, ChronoUnit.MINUTES), -3F);
+        ingest(HOUR.plus(40, ChronoUnit.MINUTES), -1F);
+        List<Long> latestIds = jdbcTemplate.queryForList(
+                "SELECT weather_measurement_id FROM weather_station_latest ORDER BY weather_measurement_id", Long.class);
+        // An hourly aggregate of the same hour from rows that were rolled up before.
+        jdbcTemplate.update("""
+                INSERT INTO weather_measurement_hourly (period_start, weather_station_wmo_code, measurement_count,
+                    min_air_temperature, max_air_temperature, avg_air_temperature, min_wind_speed, max_wind_speed,
+                    avg_wind_speed, phenomenon)
+                VALUES (?, ?, 1, -9, -9, -9, 2, 2, 2, 'Clear')
+                """, Timestamp.from(HOUR), TALLINN);
+
+        // when
+        int measurements = retentionService.rollUpMeasurements(Timestamp.from(Instant.now()));
+
+        // then
+        assertEquals(2 * STATIONS.length, measurements);
+        assertEquals(latestIds, jdbcTemplate.queryForList(
+                "SELECT id FROM weather_measurement ORDER BY id", Long.class));
+        assertEquals(0, jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM weather_measurement_code_item
+                WHERE weather_measurement_id NOT IN (SELECT id FROM weather_measurement)
+                """, Integer.class));
+        Map<String, Object> merged = findHourly(TALLINN);
+        assertEquals(3, merged.get("measurement_count"));
+        assertEquals(-9.0, ((Number) merged.get("min_air_temperature")).doubleValue(), 0.001);
+        assertEquals(-3.0, ((Number) merged.get("max_air_temperature")).doubleValue(), 0.001);
+        assertEquals(-17.0 / 3, ((Number) merged.get("avg_air_temperature")).doubleValue(), 0.001);
+        Map<String, Object> created = findHourly(TARTU);
+        assertEquals(2, created.get("measurement_count"));
+        assertEquals(-4.0, ((Number) created.get("avg_air_temperature")).doubleValue(), 0.001);
+
+        // when
+        int hourlyAggregates = retentionService.rollUpHourlyAggregates(Timestamp.from(Instant.now()));
+
+        // then
+        assertEquals(STATIONS.length, hourlyAggregates);
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM weather_measurement_hourly", Integer.class));
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT measurement_count FROM weather_measurement_daily WHERE weather_station_wmo_code = ?",
+                Integer.class, TALLINN));
+    }
+
+    private void ingest(Instant timestamp, Float airTemperature) {
+        weatherProvider.next(Timestamp.from(timestamp), airTemperature);
+        weatherService.updateWeather();
+    }
+
+    private Map<String, Object> findHourly(int WMOcode) {
+        return jdbcTemplate.queryForMap(
+                "SELECT * FROM weather_measurement_hourly WHERE weather_station_wmo_code = ?", WMOcode);
+    }
+
+    /**
+     * Returns readings with the given timestamp and air temperature for all seeded stations.
+     */
+    static class SettableWeatherProvider implements WeatherProvider {
+        private volatile Timestamp timestamp;
+        private volatile Float airTemperature;
+
+        void next(Timestamp timestamp, Float airTemperature) {
+            this.timestamp = timestamp;
+            this.airTemperature = airTemperature;
+        }
+
+        @Override
+        public String getName() {
+            return "settable";
+        }
+
+        @Override
+        public Duration getTimeout() {
+            return Duration.ofSeconds(5);
+        }
+
+        @Override
+        public WeatherObservation fetch(IntPredicate stationFilter) {
+            List<WeatherObservation.Reading> readings = new ArrayList<>();
+            for (int WMOcode : STATIONS) {
+                if (stationFilter.test(WMOcode)) {
+                    WeatherStationModel station = new WeatherStationModel();
+                    station.setWMOcode(WMOcode);
+                    station.setAirTemperature(airTemperature);
+                    station.setWindSpeed(4.7F);
+                    station.setPhenomenon("Light snow shower");
+                    readings.add(new WeatherObservation.Reading(timestamp, station));
+                }
+            }
+            return new WeatherObservation(readings);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.fujitsu.trialtask.deliveryfee.controller;
+
+import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeDto;
+import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeOutcome;
+import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeResultDto;
+import com.fujitsu.trialtask.deliveryfee.service.DeliveryFeeService;
+import com.fujitsu.trialtask.deliveryfee.service.FeeStreamService;
+import com.fujitsu.trialtask.deliveryfee.service.WeatherService;
+import com.fujitsu.trialtask.deliveryfee.util.enums.RejectionReason;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = DeliveryFeeController.class, properties = "delivery.fee.batch.max-size=2")
+public class DeliveryFeeControllerTest {
+    private static final String FEE_URL = "/api/delivery/fee/city/1/vehicle/2";
+    private static final String ETAG = "\"1-2-1710000000000-7\"";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @MockBean
+    private DeliveryFeeService deliveryService;
+    @MockBean
+    private FeeStreamService feeStreamService;
+    @MockBean
+    private WeatherService weatherService;
+
+    @Test
+    void getDeliveryFee_NoConditionalRequest_FeeWithETagAndMaxAgeUntilNextUpdate() throws Exception {
+        // given
+        given(deliveryService.getDeliveryFeeETag(1L, 2L)).willReturn(Optional.of(ETAG));
+        given(weatherService.getTimeUntilNextUpdate()).willReturn(Duration.ofSeconds(600));
+        given(deliveryService.getDeliveryFeeOutcome(1L, 2L)).willReturn(DeliveryFeeOutcome.fee(DeliveryFeeDto.builder()
+                .cityId(1L)
+                .vehicleId(2L)
+                .baseFee(new BigDecimal("3.50"))
+                .extraFee(BigDecimal.ZERO)
+                .totalFee(new BigDecimal("3.50"))
+                .build()));
+
+        // when, then
+        mockMvc.perform(get(FEE_URL))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=600"))
+                .andExpect(jsonPath("$.totalFee").value(3.5));
+    }
+
+    @Test
+    void getDeliveryFee_MatchingETag_NotModifiedWithoutCalculatingFee() throws Exception {
+        // given
+        given(deliveryService.getDeliveryFeeETag(1L, 2L)).willReturn(Optional.of(ETAG));
+        given(weatherService.getTimeUntilNextUpdate()).willReturn(Duration.ofSeconds(600));
+
+        // when, then
+        mockMvc.perform(get(FEE_URL).header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=600"))
+                .andExpect(content().string(""));
+        then(deliveryService).should(never()).getDeliveryFeeOutcome(1L, 2L);
+    }
+
+    @Test
+    void getDeliveryFee_Rejected_StatusAndMessageWithoutMaxAge() throws Exception {
+        // given
+        given(deliveryService.getDeliveryFeeETag(1L, 2L)).willReturn(Optional.of(ETAG));
+        given(weatherService.getTimeUntilNextUpdate()).willReturn(Duration.ofSeconds(600));
+        given(deliveryService.getDeliveryFeeOutcome(1L, 2L))
+                .willReturn(DeliveryFeeOutcome.rejected(RejectionReason.VEHICLE_FORBIDDEN));
+
+        // when, then
+        mockMvc.perform(get(FEE_URL))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().doesNotExist(HttpHeaders.CACHE_CONTROL))
+                .andExpect(jsonPath("$.message").value(RejectionReason.VEHICLE_FORBIDDEN.getMessage()));
+    }
+
+    @Test
+    void getDeliveryFees_NullPair_ResultPerPair() throws Exception {
+        // given
+        given(deliveryService.getDeliveryFees(any())).willReturn(List.of(
+                DeliveryFeeResultDto.builder().error(RejectionReason.INVALID_VEHICLE.getMessage()).build(),
+                DeliveryFeeResultDto.builder().cityId(1L).vehicleId(2L).error(null).build()));
+
+        // when, then
+        mockMvc.perform(post("/api/delivery/fee/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[null, {\"cityId\": 1, \"vehicleId\": 2}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].error").value(RejectionReason.INVALID_VEHICLE.getMessage()));
+    }
+
+    @Test
+    void getDeliveryFees_MorePairsThanMaxBatchSize_BadRequestWithoutCalculatingFees() throws Exception {
+        // when, then
+        mockMvc.perform(post("/api/delivery/fee/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"cityId\": 1, \"vehicleId\": 1}, {\"cityId\": 1, \"vehicleId\": 2}, "
+                                + "{\"cityId\": 1, \"vehicleId\": 3}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("At most 2 pairs are allowed in a batch"));
+        then(deliveryService).should(never()).getDeliveryFees(any());
+    }
+}
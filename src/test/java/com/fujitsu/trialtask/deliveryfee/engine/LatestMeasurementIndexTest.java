@@ -0,0 +1,72 @@
+package com.fujitsu.trialtask.deliveryfee.engine;
+
+import com.fujitsu.trialtask.deliveryfee.dto.WeatherMeasurementDto;
+import com.fujitsu.trialtask.deliveryfee.dto.WeatherStationDto;
+import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LatestMeasurementIndexTest {
+    private static final int TALLINN = 26038;
+
+    private final LatestMeasurementIndex index = new LatestMeasurementIndex();
+
+    @Test
+    void get_StoredMeasurementModifiedByCaller_OtherCallersSeeStoredValues() {
+        // given
+        WeatherMeasurementDto stored = measurement(1710000000000L, -2.1F);
+        index.update(stored);
+
+        // when
+        stored.setAirTemperature(30F);
+        WeatherMeasurementDto first = index.get(TALLINN);
+        first.setAirTemperature(20F);
+        first.getTimestamp().setTime(0);
+        WeatherMeasurementDto second = index.get(TALLINN);
+
+        // then
+        assertNotSame(first, second);
+        assertEquals(-2.1F, second.getAirTemperature());
+        assertEquals(1710000000000L, second.getTimestamp().getTime());
+        assertThrows(UnsupportedOperationException.class, () -> second.getCodeItems().clear());
+    }
+
+    @Test
+    void update_OlderMeasurement_NewerKept() {
+        // given
+        index.update(measurement(1710000000000L, -2.1F));
+
+        // when
+        index.update(measurement(1700000000000L, 5F));
+
+        // then
+        assertEquals(-2.1F, index.get(TALLINN).getAirTemperature());
+    }
+
+    @Test
+    void get_WMOcodeOutsideIndex_Null() {
+        assertNull(index.get(100_000));
+        assertNull(index.get(null));
+    }
+
+    private static WeatherMeasurementDto measurement(long time, Float airTemperature) {
+        return WeatherMeasurementDto.builder()
+                .id(1L)
+                .timestamp(new Timestamp(time))
+                .weatherStation(WeatherStationDto.builder().WMOcode(TALLINN).name("Tallinn-Harku").build())
+                .airTemperature(airTemperature)
+                .windSpeed(4.7F)
+                .phenomenon("Light snow shower")
+                .classified(true)
+                .codeItems(new ArrayList<>(List.of(new CodeItem("WP_SNOW_SLEET", "WP"))))
+                .build();
+    }
+}
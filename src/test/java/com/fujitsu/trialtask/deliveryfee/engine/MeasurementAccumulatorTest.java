@@ -0,0 +1,65 @@
+package com.fujitsu.trialtask.deliveryfee.engine;
+
+import com.fujitsu.trialtask.deliveryfee.entity.WeatherMeasurement;
+import com.fujitsu.trialtask.deliveryfee.entity.WeatherMeasurementDaily;
+import com.fujitsu.trialtask.deliveryfee.entity.WeatherMeasurementHourly;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MeasurementAccumulatorTest {
+
+    @Test
+    void writeTo_HourlyRolledUpToDaily_SameAsMeasurementsRolledUpDirectly() {
+        // given
+        WeatherMeasurement[] first = {measurement(-2F, 4F, "Light snow"), measurement(0F, 2F, "Light snow")};
+        WeatherMeasurement[] second = {measurement(4F, 10F, "Rain"), measurement(1F, 7F, "Rain"),
+                measurement(1F, 1F, "Rain")};
+
+        // when
+        WeatherMeasurementDaily daily = new WeatherMeasurementDaily();
+        MeasurementAccumulator dailyAccumulator = new MeasurementAccumulator();
+        dailyAccumulator.add(rollUp(first));
+        dailyAccumulator.add(rollUp(second));
+        dailyAccumulator.writeTo(daily);
+
+        // then
+        assertEquals(5, daily.getMeasurementCount());
+        assertEquals(-2F, daily.getMinAirTemperature());
+        assertEquals(4F, daily.getMaxAirTemperature());
+        assertEquals(0.8F, daily.getAvgAirTemperature(), 0.0001F);
+        assertEquals(1F, daily.getMinWindSpeed());
+        assertEquals(10F, daily.getMaxWindSpeed());
+        assertEquals(4.8F, daily.getAvgWindSpeed(), 0.0001F);
+        assertEquals("Rain", daily.getPhenomenon());
+    }
+
+    @Test
+    void writeTo_NoReadings_NullValues() {
+        WeatherMeasurementHourly hourly = rollUp(measurement(null, null, null));
+
+        assertEquals(1, hourly.getMeasurementCount());
+        assertNull(hourly.getAvgAirTemperature());
+        assertNull(hourly.getMaxWindSpeed());
+        assertNull(hourly.getPhenomenon());
+    }
+
+    private static WeatherMeasurementHourly rollUp(WeatherMeasurement... measurements) {
+        MeasurementAccumulator accumulator = new MeasurementAccumulator();
+        for (WeatherMeasurement measurement : measurements) {
+            accumulator.add(measurement);
+        }
+        WeatherMeasurementHourly hourly = new WeatherMeasurementHourly();
+        accumulator.writeTo(hourly);
+        return hourly;
+    }
+
+    private static WeatherMeasurement measurement(Float airTemperature, Float windSpeed, String phenomenon) {
+        return WeatherMeasurement.builder()
+                .airTemperature(airTemperature)
+                .windSpeed(windSpeed)
+                .phenomenon(phenomenon)
+                .build();
+    }
+}
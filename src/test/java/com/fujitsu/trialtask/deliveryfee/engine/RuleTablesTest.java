@@ -0,0 +1,67 @@
+package com.fujitsu.trialtask.deliveryfee.engine;
+
+import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
+import com.fujitsu.trialtask.deliveryfee.projection.ExtraFeeRow;
+import com.fujitsu.trialtask.deliveryfee.projection.WorkProhibitionRow;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RuleTablesTest {
+    private static final Long CAR = 1L;
+    private static final Long BIKE = 3L;
+
+    private static List<CodeItem> codeItems;
+    private static RuleTables ruleTables;
+
+    @BeforeAll
+    static void setUp() {
+        // More code items than bits of a long, so the masks span two words.
+        codeItems = new ArrayList<>();
+        for (int i = 0; i <= Long.SIZE; i++) {
+            codeItems.add(new CodeItem("WP_" + i, "WP"));
+        }
+        ruleTables = RuleTables.build(codeItems,
+                List.of(new WorkProhibitionRow(BIKE, "WP_64")),
+                List.of(new ExtraFeeRow(CAR, "WP_0", new BigDecimal("0.50")),
+                        new ExtraFeeRow(CAR, "WP_63", new BigDecimal("1.00")),
+                        new ExtraFeeRow(CAR, "WP_64", new BigDecimal("0.25"))));
+    }
+
+    @Test
+    void isProhibited_CodeItemBeyondFirstWord_Prohibited() {
+        // when, then
+        assertTrue(ruleTables.isProhibited(BIKE, ruleTables.toCodeMask(List.of(codeItems.get(64)))));
+        assertFalse(ruleTables.isProhibited(BIKE, ruleTables.toCodeMask(List.of(codeItems.get(0)))));
+        assertFalse(ruleTables.isProhibited(CAR, ruleTables.toCodeMask(List.of(codeItems.get(64)))));
+    }
+
+    @Test
+    void sumExtraFeeCents_CodeItemsInBothWords_AllFeesSummed() {
+        // given
+        long[] codeMask = ruleTables.toCodeMask(List.of(codeItems.get(0), codeItems.get(63), codeItems.get(64)));
+
+        // when
+        long cents = ruleTables.sumExtraFeeCents(CAR, codeMask);
+
+        // then
+        assertEquals(175, cents);
+    }
+
+    @Test
+    void toCodeMask_UnknownCode_Ignored() {
+        // when
+        long[] codeMask = ruleTables.toCodeMask(List.of(new CodeItem("WS_ABOVE_TWENTY", "WS")));
+
+        // then
+        assertEquals(0, ruleTables.sumExtraFeeCents(CAR, codeMask));
+        assertFalse(ruleTables.isProhibited(BIKE, codeMask));
+    }
+}
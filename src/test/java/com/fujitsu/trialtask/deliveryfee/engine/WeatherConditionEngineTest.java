@@ -0,0 +1,122 @@
+package com.fujitsu.trialtask.deliveryfee.engine;
+
+import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
+import com.fujitsu.trialtask.deliveryfee.entity.SevereWeatherCondition;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WeatherConditionEngineTest {
+    private static WeatherConditionEngine engine;
+
+    @BeforeAll
+    static void setUp() {
+        // Same rules as the initial changelog
+        engine = WeatherConditionEngine.compile(List.of(
+                new SevereWeatherCondition(1L, codeItem("AT_UNDER_MINUS_TEN"), null, -10F, List.of()),
+                new SevereWeatherCondition(2L, codeItem("AT_MINUS_TEN_TO_ZERO"), -10F, 0F, List.of()),
+                new SevereWeatherCondition(3L, codeItem("WS_TEN_TO_TWENTY"), 10F, 20F, List.of()),
+                new SevereWeatherCondition(4L, codeItem("WS_ABOVE_TWENTY"), 20F, null, List.of()),
+                new SevereWeatherCondition(5L, codeItem("WP_SNOW_SLEET"), null, null, List.of("snow", "sleet")),
+                new SevereWeatherCondition(6L, codeItem("WP_RAIN"), null, null, List.of("rain")),
+                new SevereWeatherCondition(7L, codeItem("WP_GLAZE_HAIL_THUNDER"), null, null,
+                        List.of("glaze", "hail", "thunder"))
+        ));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideForFloatMeasurementTest")
+    void classify_FloatMeasurementBoundaries_SameCodesAsRangeQuery(Float airTemperature, Float windSpeed,
+                                                                   List<String> expectedCodes) {
+        // when
+        List<CodeItem> result = engine.classify(airTemperature, windSpeed, null);
+
+        // then
+        assertEquals(expectedCodes, codes(result));
+    }
+
+    private static Stream<Arguments> provideForFloatMeasurementTest() {
+        return Stream.of(
+                Arguments.of(-10.1F, null, List.of("AT_UNDER_MINUS_TEN")),
+                Arguments.of(-10F, null, List.of("AT_MINUS_TEN_TO_ZERO")),
+                Arguments.of(0F, null, List.of("AT_MINUS_TEN_TO_ZERO")),
+                Arguments.of(0.1F, null, List.of()),
+                Arguments.of(null, 9.9F, List.of()),
+                Arguments.of(null, 10F, List.of("WS_TEN_TO_TWENTY")),
+                Arguments.of(null, 20F, List.of("WS_TEN_TO_TWENTY")),
+                Arguments.of(null, 20.1F, List.of("WS_ABOVE_TWENTY")),
+                Arguments.of(-5F, 15F, List.of("AT_MINUS_TEN_TO_ZERO", "WS_TEN_TO_TWENTY"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideForPhenomenonTest")
+    void classify_Phenomenon_CaseInsensitiveSubstringMatch(String phenomenon, List<String> expectedCodes) {
+        // when
+        List<CodeItem> result = engine.classify(null, null, phenomenon);
+
+        // then
+        assertEquals(expectedCodes, codes(result));
+    }
+
+    private static Stream<Arguments> provideForPhenomenonTest() {
+        return Stream.of(
+                Arguments.of("Light snow shower", List.of("WP_SNOW_SLEET")),
+                Arguments.of("SLEET", List.of("WP_SNOW_SLEET")),
+                Arguments.of("Moderate rain", List.of("WP_RAIN")),
+                Arguments.of("Thunderstorm", List.of("WP_GLAZE_HAIL_THUNDER")),
+                Arguments.of("Glaze", List.of("WP_GLAZE_HAIL_THUNDER")),
+                Arguments.of("rain and hail", List.of("WP_RAIN", "WP_GLAZE_HAIL_THUNDER")),
+                Arguments.of("Clear", List.of()),
+                Arguments.of("snsnow", List.of("WP_SNOW_SLEET")),
+                Arguments.of("   ", List.of())
+        );
+    }
+
+    @Test
+    void classify_AllReadings_PhenomenonCodesFirst() {
+        // when
+        List<CodeItem> result = engine.classify(-20F, 25F, "Heavy snowfall");
+
+        // then
+        assertEquals(List.of("WP_SNOW_SLEET", "AT_UNDER_MINUS_TEN", "WS_ABOVE_TWENTY"), codes(result));
+    }
+
+    @Test
+    void classify_MorePhenomenonConditionsThanBitsOfLong_ConditionsOnBothSidesMatched() {
+        // given
+        List<SevereWeatherCondition> conditions = new ArrayList<>();
+        for (int i = 0; i <= Long.SIZE; i++) {
+            conditions.add(new SevereWeatherCondition((long) i, codeItem("WP_" + i), null, null, List.of("x" + i + "x")));
+        }
+        WeatherConditionEngine wideEngine = WeatherConditionEngine.compile(conditions);
+
+        // when
+        List<CodeItem> result = wideEngine.classify(null, null, "X0X, x63x and x64x");
+
+        // then
+        assertEquals(List.of("WP_0", "WP_63", "WP_64"), codes(result));
+    }
+
+    @Test
+    void classify_NoReadings_NoCodes() {
+        assertTrue(engine.classify(null, null, null).isEmpty());
+    }
+
+    private static CodeItem codeItem(String code) {
+        return new CodeItem(code, code.substring(0, code.indexOf('_')));
+    }
+
+    private static List<String> codes(List<CodeItem> codeItems) {
+        return codeItems.stream().map(CodeItem::getCode).toList();
+    }
+}
@@ -0,0 +1,86 @@
+package com.fujitsu.trialtask.deliveryfee.provider;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CircuitBreakerTest {
+    private final AtomicLong now = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofMinutes(1), now::get);
+
+    @Test
+    void onFailure_ThresholdReached_RequestsRejectedUntilOpenDurationPassed() {
+        // given
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+
+        // when
+        boolean whileOpen = breaker.tryAcquire();
+        now.addAndGet(Duration.ofMinutes(1).toNanos());
+        boolean trial = breaker.tryAcquire();
+        boolean duringTrial = breaker.tryAcquire();
+
+        // then
+        assertFalse(whileOpen);
+        assertTrue(trial);
+        assertFalse(duringTrial);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void onSuccess_TrialSucceeded_Closed() {
+        // given
+        openBreaker();
+        now.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertTrue(breaker.tryAcquire());
+
+        // when
+        breaker.onSuccess();
+
+        // then
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void onFailure_TrialFailed_OpenedAgain() {
+        // given
+        openBreaker();
+        now.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertTrue(breaker.tryAcquire());
+
+        // when
+        breaker.onFailure();
+
+        // then
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void delay_ManyAttempts_DoublesWithJitterUpToMax() {
+        ExponentialBackoff backoff = new ExponentialBackoff(Duration.ofSeconds(2), Duration.ofSeconds(30));
+
+        Duration first = backoff.delay(1);
+        Duration third = backoff.delay(3);
+        Duration late = backoff.delay(40);
+
+        assertTrue(first.toMillis() >= 1000 && first.toMillis() <= 2000);
+        assertTrue(third.toMillis() >= 4000 && third.toMillis() <= 8000);
+        assertTrue(late.toMillis() >= 15000 && late.toMillis() <= 30000);
+    }
+
+    private void openBreaker() {
+        for (int i = 0; i < 3; i++) {
+            breaker.tryAcquire();
+            breaker.onFailure();
+        }
+    }
+}
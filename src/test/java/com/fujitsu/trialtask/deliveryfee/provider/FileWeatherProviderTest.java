@@ -0,0 +1,60 @@
+package com.fujitsu.trialtask.deliveryfee.provider;
+
+import com.fujitsu.trialtask.deliveryfee.util.exception.WeatherRequestException;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FileWeatherProviderTest {
+    private final FileWeatherProvider provider = new FileWeatherProvider();
+
+    @Test
+    void fetch_Observations_ReadingsOfWantedStations() {
+        // given
+        setLocation("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <observations timestamp="1710000000">
+                  <station>
+                    <name>Tallinn-Harku</name>
+                    <wmocode>26038</wmocode>
+                    <phenomenon>Light snow shower</phenomenon>
+                    <airtemperature>-2.1</airtemperature>
+                    <windspeed>4.7</windspeed>
+                  </station>
+                  <station>
+                    <name>Ruhnu</name>
+                    <wmocode>41104</wmocode>
+                    <phenomenon>Clear</phenomenon>
+                    <airtemperature>0.3</airtemperature>
+                    <windspeed>8.0</windspeed>
+                  </station>
+                </observations>
+                """);
+
+        // when
+        WeatherObservation observation = provider.fetch(WMOcode -> WMOcode == 26038);
+
+        // then
+        assertEquals(1, observation.readings().size());
+        assertEquals("Light snow shower", observation.readings().get(0).station().getPhenomenon());
+        assertEquals(1710000000L * 1000, observation.readings().get(0).timestamp().getTime());
+    }
+
+    @Test
+    void fetch_NoObservationTimestamp_WeatherRequestException() {
+        // given
+        setLocation("<observations><station><wmocode>26038</wmocode></station></observations>");
+
+        // when, then
+        assertThrows(WeatherRequestException.class, () -> provider.fetch(WMOcode -> true));
+    }
+
+    private void setLocation(String content) {
+        ReflectionTestUtils.setField(provider, "location", new ByteArrayResource(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
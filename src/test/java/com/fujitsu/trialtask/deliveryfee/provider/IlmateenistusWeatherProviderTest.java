@@ -0,0 +1,111 @@
+package com.fujitsu.trialtask.deliveryfee.provider;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IlmateenistusWeatherProviderTest {
+    private static final String ETAG = "\"observations-1\"";
+    private static final byte[] OBSERVATIONS = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <observations timestamp="1710000000">
+              <station>
+                <name>Tallinn-Harku</name>
+                <wmocode>26038</wmocode>
+                <phenomenon>Light snow shower</phenomenon>
+                <airtemperature>-2.1</airtemperature>
+                <windspeed>4.7</windspeed>
+              </station>
+              <station>
+                <name>Ruhnu</name>
+                <wmocode>41104</wmocode>
+                <phenomenon>Clear</phenomenon>
+                <airtemperature>0.3</airtemperature>
+                <windspeed>8.0</windspeed>
+              </station>
+            </observations>
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private final List<String> receivedETags = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private IlmateenistusWeatherProvider provider;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/observations", exchange -> {
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            receivedETags.add(String.valueOf(ifNoneMatch));
+            if (ETAG.equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                exchange.getResponseHeaders().add("ETag", ETAG);
+                exchange.sendResponseHeaders(200, OBSERVATIONS.length);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(OBSERVATIONS);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+
+        provider = new IlmateenistusWeatherProvider(HttpClient.newHttpClient(), 5, Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(provider, "weatherRequestUrl",
+                "http://localhost:" + server.getAddress().getPort() + "/observations");
+        ReflectionTestUtils.setField(provider, "streamingParserEnabled", true);
+        ReflectionTestUtils.setField(provider, "timeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(provider, "requestTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(provider, "initialBackoff", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(provider, "maxBackoff", Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void fetch_Modified_ReadingsOfWantedStations() {
+        // when
+        WeatherObservation observation = provider.fetch(WMOcode -> WMOcode == 26038);
+
+        // then
+        assertTrue(observation.isModified());
+        assertEquals(1, observation.readings().size());
+        assertEquals(26038, observation.readings().get(0).station().getWMOcode());
+        assertEquals(1710000000L * 1000, observation.readings().get(0).timestamp().getTime());
+    }
+
+    @Test
+    void fetch_AfterIngest_ConditionalRequestNotModified() {
+        // given
+        provider.fetch(WMOcode -> true);
+        provider.fetch(WMOcode -> true);
+        provider.onIngested();
+
+        // when
+        WeatherObservation observation = provider.fetch(WMOcode -> true);
+
+        // then
+        assertFalse(observation.isModified());
+        assertNull(observation.readings());
+        // Validators are only sent once the fetched readings have been ingested.
+        assertEquals(List.of("null", "null", ETAG), receivedETags);
+    }
+}
@@ -1,32 +1,54 @@
 package com.fujitsu.trialtask.deliveryfee.service;
 
 import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeDto;
+import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeOutcome;
+import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeRequestDto;
+import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeResultDto;
 import com.fujitsu.trialtask.deliveryfee.dto.WeatherMeasurementDto;
 import com.fujitsu.trialtask.deliveryfee.dto.WeatherStationDto;
 import com.fujitsu.trialtask.deliveryfee.entity.*;
+import com.fujitsu.trialtask.deliveryfee.event.FeesChangedEvent;
+import com.fujitsu.trialtask.deliveryfee.metrics.DeliveryFeeMetrics;
+import com.fujitsu.trialtask.deliveryfee.projection.CityStation;
+import com.fujitsu.trialtask.deliveryfee.projection.MeasurementReading;
+import com.fujitsu.trialtask.deliveryfee.projection.RegionalBaseFeeRow;
 import com.fujitsu.trialtask.deliveryfee.repository.*;
 import com.fujitsu.trialtask.deliveryfee.util.CodeItemUtil;
+import com.fujitsu.trialtask.deliveryfee.util.MoneyUtil;
 import com.fujitsu.trialtask.deliveryfee.util.TestUtil;
+import com.fujitsu.trialtask.deliveryfee.util.enums.RejectionReason;
 import com.fujitsu.trialtask.deliveryfee.util.exception.DeliveryFeeException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.sql.Timestamp;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
 
 @ExtendWith(MockitoExtension.class)
 public class DeliveryFeeServiceTest {
@@ -44,6 +66,11 @@ public class DeliveryFeeServiceTest {
     private VehicleRepository vehicleRepository;
     @Mock
     private CityRepository cityRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Spy
+    private DeliveryFeeMetrics metrics = new DeliveryFeeMetrics(meterRegistry);
     @InjectMocks
     private DeliveryFeeService deliveryService;
 
@@ -106,13 +133,14 @@ public class DeliveryFeeServiceTest {
         // then
         then(vehicleRepository).should().existsById(5L);
         assertEquals("Invalid vehicle ID", thrown.getMessage());
+        assertEquals(1, meterRegistry.get("delivery.fee.rejections").tag("reason", "invalid_vehicle").counter().count());
     }
 
     @Test
     void getDeliveryFee_InvalidCityId_DeliveryFeeException() {
         // given
         given(vehicleRepository.existsById(car.getId())).willReturn(true);
-        given(cityRepository.findById(1L)).willReturn(Optional.empty());
+        given(cityRepository.findStationById(1L)).willReturn(Optional.empty());
 
         // when
         DeliveryFeeException thrown = assertThrows(DeliveryFeeException.class,
@@ -120,7 +148,7 @@ public class DeliveryFeeServiceTest {
 
         // then
         then(vehicleRepository).should().existsById(car.getId());
-        then(cityRepository).should().findById(1L);
+        then(cityRepository).should().findStationById(1L);
         assertEquals("Invalid city ID", thrown.getMessage());
     }
 
@@ -128,9 +156,9 @@ public class DeliveryFeeServiceTest {
     void getDeliveryFee_InvalidVehicleAndCityCombination_DeliveryFeeException() {
         // given
         given(vehicleRepository.existsById(car.getId())).willReturn(true);
-        given(cityRepository.findById(tallinn.getId())).willReturn(Optional.of(tallinn));
+        given(cityRepository.findStationById(tallinn.getId())).willReturn(Optional.of(toCityStation(tallinn)));
         given(baseFeeService.getBaseFee(tallinn.getId(), car.getId())).willReturn(Optional.empty());
-        given(weatherService.getLatestMeasurementFromStation(tallinn.getWeatherStation())).willReturn(normalWeather);
+        given(weatherService.getLatestMeasurementFromStation(station.getWMOcode())).willReturn(normalWeather);
 
         // when
         DeliveryFeeException thrown = assertThrows(DeliveryFeeException.class,
@@ -145,13 +173,11 @@ public class DeliveryFeeServiceTest {
     void getDeliveryFee_UnfitWeatherConditionsForVehicle_DeliveryFeeException(
             Vehicle vehicle, CodeItem codeItem, WeatherMeasurementDto weather) {
         // given
-        WorkProhibition prohibition = new WorkProhibition(10L, vehicle, codeItem);
         given(vehicleRepository.existsById(vehicle.getId())).willReturn(true);
-        given(cityRepository.findById(tallinn.getId())).willReturn(Optional.of(tallinn));
-        given(weatherService.getLatestMeasurementFromStation(tallinn.getWeatherStation())).willReturn(weather);
+        given(cityRepository.findStationById(tallinn.getId())).willReturn(Optional.of(toCityStation(tallinn)));
+        given(weatherService.getLatestMeasurementFromStation(station.getWMOcode())).willReturn(weather);
         given(weatherConditionService.getCodeItemsFromWeatherMeasurementDto(weather)).willReturn(List.of(codeItem));
-        given(prohibitionService.findWeatherProhibitionForVehicle(List.of(codeItem), vehicle.getId()))
-                .willReturn(Optional.of(prohibition));
+        given(prohibitionService.isVehicleProhibited(List.of(codeItem), vehicle.getId())).willReturn(true);
 
         // when
         DeliveryFeeException thrown = assertThrows(DeliveryFeeException.class,
@@ -159,9 +185,9 @@ public class DeliveryFeeServiceTest {
 
         // then
         then(vehicleRepository).should().existsById(vehicle.getId());
-        then(cityRepository).should().findById(tallinn.getId());
-        then(weatherService).should().getLatestMeasurementFromStation(tallinn.getWeatherStation());
-        then(prohibitionService).should().findWeatherProhibitionForVehicle(List.of(codeItem), vehicle.getId());
+        then(cityRepository).should().findStationById(tallinn.getId());
+        then(weatherService).should().getLatestMeasurementFromStation(station.getWMOcode());
+        then(prohibitionService).should().isVehicleProhibited(List.of(codeItem), vehicle.getId());
         assertEquals("Usage of selected vehicle type is forbidden", thrown.getMessage());
     }
 
@@ -208,23 +234,222 @@ public class DeliveryFeeServiceTest {
         // given
         RegionalBaseFee baseFee = TestUtil.getRegionalBaseFee(vehicle, city);
         given(vehicleRepository.existsById(vehicle.getId())).willReturn(true);
-        given(cityRepository.findById(city.getId())).willReturn(Optional.of(city));
-        given(weatherService.getLatestMeasurementFromStation(city.getWeatherStation())).willReturn(normalWeather);
+        given(cityRepository.findStationById(city.getId())).willReturn(Optional.of(toCityStation(city)));
+        given(weatherService.getLatestMeasurementFromStation(station.getWMOcode())).willReturn(normalWeather);
         given(baseFeeService.getBaseFee(city.getId(), vehicle.getId()))
-                .willReturn(Optional.of(baseFee));
+                .willReturn(Optional.of(toRow(baseFee)));
 
         // when
         DeliveryFeeDto result = deliveryService.getDeliveryFee(city.getId(), vehicle.getId());
 
         // then
         then(vehicleRepository).should().existsById(vehicle.getId());
-        then(cityRepository).should().findById(city.getId());
-        then(weatherService).should().getLatestMeasurementFromStation(city.getWeatherStation());
+        then(cityRepository).should().findStationById(city.getId());
+        then(weatherService).should().getLatestMeasurementFromStation(station.getWMOcode());
         then(baseFeeService).should().getBaseFee(city.getId(), vehicle.getId());
         DeliveryFeeDto expected = getExpectedDeliveryFeeDto(vehicle, baseFee, List.of());
         assertDeliveryFeeDto(expected, result);
     }
 
+    @Test
+    void getDeliveryFee_SnapshotBuilt_AnsweredWithoutRepositoryCalls() {
+        // given
+        List<CodeItem> codeItems = List.of(CodeItemUtil.WP_RAIN);
+        WeatherMeasurementDto weather = TestUtil.getWeatherMeasurementDto(station, codeItems);
+        RegionalBaseFee baseFee = TestUtil.getRegionalBaseFee(scooter, tallinn);
+        List<ExtraFee> extraFees = TestUtil.getExtraFees(scooter, codeItems);
+        given(vehicleRepository.findAllIds()).willReturn(List.of(scooter.getId()));
+        given(cityRepository.findAllStations()).willReturn(List.of(toCityStation(tallinn)));
+        given(weatherService.getLatestMeasurementFromStation(station.getWMOcode())).willReturn(weather);
+        given(weatherConditionService.getCodeItemsFromWeatherMeasurementDto(weather)).willReturn(codeItems);
+        given(baseFeeService.getAllBaseFees()).willReturn(List.of(toRow(baseFee)));
+        given(extraFeeService.getTotalExtraFeeCents(codeItems, scooter.getId())).willReturn(getTotalCents(extraFees));
+        ReflectionTestUtils.setField(deliveryService, "snapshotEnabled", true);
+        deliveryService.refreshSnapshot();
+
+        // when
+        DeliveryFeeDto result = deliveryService.getDeliveryFee(tallinn.getId(), scooter.getId());
+        DeliveryFeeException thrown = assertThrows(DeliveryFeeException.class,
+                () -> deliveryService.getDeliveryFee(tallinn.getId(), car.getId()));
+
+        // then
+        then(vehicleRepository).should(never()).existsById(any());
+        then(cityRepository).should(never()).findStationById(any());
+        then(baseFeeService).should(never()).getBaseFee(any(), any());
+        assertDeliveryFeeDto(getExpectedDeliveryFeeDto(scooter, baseFee, extraFees), result);
+        assertEquals("Invalid vehicle ID", thrown.getMessage());
+    }
+
+    @Test
+    void getDeliveryFeeOutcome_VehicleForbiddenInSnapshot_RejectionReturnedAndCounted() {
+        // given
+        List<CodeItem> codeItems = List.of(CodeItemUtil.WP_GLAZE_HAIL_THUNDER);
+        WeatherMeasurementDto weather = TestUtil.getWeatherMeasurementDto(station, codeItems);
+        given(vehicleRepository.findAllIds()).willReturn(List.of(bike.getId()));
+        given(cityRepository.findAllStations()).willReturn(List.of(toCityStation(tallinn)));
+        given(weatherService.getLatestMeasurementFromStation(station.getWMOcode())).willReturn(weather);
+        given(weatherConditionService.getCodeItemsFromWeatherMeasurementDto(weather)).willReturn(codeItems);
+        given(prohibitionService.isVehicleProhibited(codeItems, bike.getId())).willReturn(true);
+        ReflectionTestUtils.setField(deliveryService, "snapshotEnabled", true);
+        deliveryService.refreshSnapshot();
+
+        // when
+        DeliveryFeeOutcome outcome = deliveryService.getDeliveryFeeOutcome(tallinn.getId(), bike.getId());
+        DeliveryFeeException thrown = assertThrows(DeliveryFeeException.class, outcome::orElseThrow);
+
+        // then
+        assertNull(outcome.fee());
+        assertEquals(RejectionReason.VEHICLE_FORBIDDEN, outcome.rejection());
+        assertEquals(HttpStatus.BAD_REQUEST, outcome.rejection().getStatus());
+        assertSame(DeliveryFeeException.of(RejectionReason.VEHICLE_FORBIDDEN), thrown);
+        assertEquals(0, thrown.getStackTrace().length);
+        assertEquals(1, meterRegistry.get("delivery.fee.rejections").tag("reason", "vehicle_forbidden").counter().count());
+    }
+
+    @Test
+    void refreshSnapshot_ExtraFeeChangedForOneVehicle_OnlyChangedPairPublished() {
+        // given
+        List<CodeItem> codeItems = List.of(CodeItemUtil.WP_RAIN);
+        WeatherMeasurementDto weather = TestUtil.getWeatherMeasurementDto(station, codeItems);
+        given(vehicleRepository.findAllIds()).willReturn(List.of(scooter.getId(), car.getId()));
+        given(cityRepository.findAllStations()).willReturn(List.of(toCityStation(tallinn)));
+        given(weatherService.getLatestMeasurementFromStation(station.getWMOcode())).willReturn(weather);
+        given(weatherConditionService.getCodeItemsFromWeatherMeasurementDto(weather)).willReturn(codeItems);
+        given(baseFeeService.getAllBaseFees()).willReturn(List.of(
+                toRow(TestUtil.getRegionalBaseFee(scooter, tallinn)),
+                toRow(TestUtil.getRegionalBaseFee(car, tallinn))));
+        given(extraFeeService.getTotalExtraFeeCents(codeItems, scooter.getId())).willReturn(50L, 100L);
+        ReflectionTestUtils.setField(deliveryService, "snapshotEnabled", true);
+        ArgumentCaptor<FeesChangedEvent> event = ArgumentCaptor.forClass(FeesChangedEvent.class);
+
+        // when
+        deliveryService.refreshSnapshot();
+        deliveryService.refreshSnapshot();
+
+        // then
+        then(eventPublisher).should().publishEvent(event.capture());
+        assertEquals(1, event.getValue().changes().size());
+        DeliveryFeeResultDto change = event.getValue().changes().get(0);
+        assertEquals(tallinn.getId(), change.getCityId());
+        assertEquals(scooter.getId(), change.getVehicleId());
+        assertEquals(0, new BigDecimal("1.00").compareTo(change.getFee().getExtraFee()));
+    }
+
+    @Test
+    void getDeliveryFees_ValidAndInvalidPairs_ResultPerPairWithSetBasedLookups() {
+        // given
+        List<CodeItem> codeItems = List.of(CodeItemUtil.WP_RAIN);
+        WeatherMeasurementDto weather = TestUtil.getWeatherMeasurementDto(station, codeItems);
+        RegionalBaseFee baseFee = TestUtil.getRegionalBaseFee(scooter, tallinn);
+        List<ExtraFee> extraFees = TestUtil.getExtraFees(scooter, codeItems);
+        List<DeliveryFeeRequestDto> requests = List.of(
+                new DeliveryFeeRequestDto(tallinn.getId(), scooter.getId()),
+                new DeliveryFeeRequestDto(tallinn.getId(), 5L),
+                new DeliveryFeeRequestDto(tallinn.getId(), scooter.getId())
+        );
+        given(vehicleRepository.findIdsByIdIn(Set.of(scooter.getId(), 5L))).willReturn(List.of(scooter.getId()));
+        given(cityRepository.findStationsByIdIn(Set.of(tallinn.getId()))).willReturn(List.of(toCityStation(tallinn)));
+        given(weatherService.getLatestMeasurementsFromStations(Set.of(station.getWMOcode())))
+                .willReturn(Map.of(station.getWMOcode(), weather));
+        given(weatherConditionService.getCodeItemsFromWeatherMeasurementDto(weather)).willReturn(codeItems);
+        given(extraFeeService.getTotalExtraFeeCents(codeItems, scooter.getId())).willReturn(getTotalCents(extraFees));
+        given(baseFeeService.getBaseFees(Set.of(tallinn.getId()), Set.of(scooter.getId())))
+                .willReturn(List.of(toRow(baseFee)));
+
+        // when
+        List<DeliveryFeeResultDto> results = deliveryService.getDeliveryFees(requests);
+
+        // then
+        then(weatherService).should().getLatestMeasurementsFromStations(Set.of(station.getWMOcode()));
+        then(baseFeeService).should().getBaseFees(Set.of(tallinn.getId()), Set.of(scooter.getId()));
+        assertEquals(3, results.size());
+        DeliveryFeeDto expected = getExpectedDeliveryFeeDto(scooter, baseFee, extraFees);
+        assertDeliveryFeeDto(expected, results.get(0).getFee());
+        assertNull(results.get(1).getFee());
+        assertEquals("Invalid vehicle ID", results.get(1).getError());
+        assertDeliveryFeeDto(expected, results.get(2).getFee());
+    }
+
+    @Test
+    void getDeliveryFees_NullIds_RejectedPerPairWithoutFailingBatch() {
+        // given
+        List<CodeItem> codeItems = List.of(CodeItemUtil.WP_RAIN);
+        WeatherMeasurementDto weather = TestUtil.getWeatherMeasurementDto(station, codeItems);
+        RegionalBaseFee baseFee = TestUtil.getRegionalBaseFee(scooter, tallinn);
+        List<DeliveryFeeRequestDto> requests = Arrays.asList(
+                new DeliveryFeeRequestDto(null, scooter.getId()),
+                new DeliveryFeeRequestDto(tallinn.getId(), null),
+                new DeliveryFeeRequestDto(null, null),
+                null,
+                new DeliveryFeeRequestDto(tallinn.getId(), scooter.getId())
+        );
+        given(vehicleRepository.findIdsByIdIn(Set.of(scooter.getId()))).willReturn(List.of(scooter.getId()));
+        given(cityRepository.findStationsByIdIn(Set.of(tallinn.getId()))).willReturn(List.of(toCityStation(tallinn)));
+        given(weatherService.getLatestMeasurementsFromStations(Set.of(station.getWMOcode())))
+                .willReturn(Map.of(station.getWMOcode(), weather));
+        given(weatherConditionService.getCodeItemsFromWeatherMeasurementDto(weather)).willReturn(codeItems);
+        given(baseFeeService.getBaseFees(Set.of(tallinn.getId()), Set.of(scooter.getId())))
+                .willReturn(List.of(toRow(baseFee)));
+
+        // when
+        List<DeliveryFeeResultDto> results = deliveryService.getDeliveryFees(requests);
+
+        // then
+        assertEquals(5, results.size());
+        assertEquals("Invalid city ID", results.get(0).getError());
+        assertEquals("Invalid vehicle ID", results.get(1).getError());
+        assertEquals("Invalid vehicle ID", results.get(2).getError());
+        assertEquals("Invalid vehicle ID", results.get(3).getError());
+        assertNull(results.get(4).getError());
+        assertNotNull(results.get(4).getFee());
+    }
+
+    @Test
+    void getDeliveryFees_NullIdsWithSnapshot_RejectedPerPair() {
+        // given
+        given(vehicleRepository.findAllIds()).willReturn(List.of(scooter.getId()));
+        given(cityRepository.findAllStations()).willReturn(List.of(toCityStation(tallinn)));
+        given(weatherService.getLatestMeasurementFromStation(station.getWMOcode())).willReturn(normalWeather);
+        given(weatherConditionService.getCodeItemsFromWeatherMeasurementDto(normalWeather)).willReturn(List.of());
+        given(baseFeeService.getAllBaseFees())
+                .willReturn(List.of(toRow(TestUtil.getRegionalBaseFee(scooter, tallinn))));
+        ReflectionTestUtils.setField(deliveryService, "snapshotEnabled", true);
+        deliveryService.refreshSnapshot();
+
+        // when
+        List<DeliveryFeeResultDto> results = deliveryService.getDeliveryFees(List.of(
+                new DeliveryFeeRequestDto(null, scooter.getId()),
+                new DeliveryFeeRequestDto(tallinn.getId(), null)));
+
+        // then
+        assertEquals("Invalid city ID", results.get(0).getError());
+        assertEquals("Invalid vehicle ID", results.get(1).getError());
+        assertTrue(deliveryService.getDeliveryFeeETag(null, scooter.getId()).isEmpty());
+    }
+
+    @Test
+    void getDeliveryFeeAt_PastTimestamp_UsesMeasurementInEffectAtThatTime() {
+        // given
+        Timestamp at = new Timestamp(400000);
+        RegionalBaseFee baseFee = TestUtil.getRegionalBaseFee(car, tartu);
+        given(vehicleRepository.existsById(car.getId())).willReturn(true);
+        given(cityRepository.findStationById(tartu.getId())).willReturn(Optional.of(toCityStation(tartu)));
+        MeasurementReading reading = new MeasurementReading(at, normalWeather.getAirTemperature(),
+                normalWeather.getWindSpeed(), normalWeather.getPhenomenon());
+        given(weatherService.getReadingFromStationAt(station.getWMOcode(), at)).willReturn(reading);
+        given(weatherConditionService.classify(reading.airTemperature(), reading.windSpeed(), reading.phenomenon()))
+                .willReturn(List.of());
+        given(baseFeeService.getBaseFee(tartu.getId(), car.getId())).willReturn(Optional.of(toRow(baseFee)));
+
+        // when
+        DeliveryFeeDto result = deliveryService.getDeliveryFeeAt(tartu.getId(), car.getId(), at);
+
+        // then
+        then(weatherService).should().getReadingFromStationAt(station.getWMOcode(), at);
+        then(weatherService).should(never()).getLatestMeasurementFromStation(any());
+        assertDeliveryFeeDto(getExpectedDeliveryFeeDto(car, baseFee, List.of()), result);
+    }
+
     private static Stream<Arguments> provideForBaseFeeTest() {
         List<City> cities = List.of(tallinn, tartu, parnu);
 
@@ -422,20 +647,34 @@ public class DeliveryFeeServiceTest {
     private void setUpMocks(Vehicle vehicle, List<CodeItem> codeItems, WeatherMeasurementDto weather,
                             RegionalBaseFee baseFee, List<ExtraFee> extraFees) {
         given(vehicleRepository.existsById(vehicle.getId())).willReturn(true);
-        given(cityRepository.findById(tallinn.getId())).willReturn(Optional.of(tallinn));
-        given(weatherService.getLatestMeasurementFromStation(tallinn.getWeatherStation())).willReturn(weather);
+        given(cityRepository.findStationById(tallinn.getId())).willReturn(Optional.of(toCityStation(tallinn)));
+        given(weatherService.getLatestMeasurementFromStation(station.getWMOcode())).willReturn(weather);
         given(weatherConditionService.getCodeItemsFromWeatherMeasurementDto(weather)).willReturn(codeItems);
-        given(baseFeeService.getBaseFee(tallinn.getId(), vehicle.getId())).willReturn(Optional.of(baseFee));
-        given(extraFeeService.getWeatherExtraFees(codeItems, vehicle.getId())).willReturn(extraFees);
+        given(baseFeeService.getBaseFee(tallinn.getId(), vehicle.getId())).willReturn(Optional.of(toRow(baseFee)));
+        given(extraFeeService.getTotalExtraFeeCents(codeItems, vehicle.getId())).willReturn(getTotalCents(extraFees));
     }
 
     private void verifyMockInteractions(Vehicle vehicle, List<CodeItem> codeItems, WeatherMeasurementDto weather) {
         then(vehicleRepository).should().existsById(vehicle.getId());
-        then(cityRepository).should().findById(tallinn.getId());
-        then(weatherService).should().getLatestMeasurementFromStation(tallinn.getWeatherStation());
+        then(cityRepository).should().findStationById(tallinn.getId());
+        then(weatherService).should().getLatestMeasurementFromStation(station.getWMOcode());
         then(weatherConditionService).should().getCodeItemsFromWeatherMeasurementDto(weather);
         then(baseFeeService).should().getBaseFee(tallinn.getId(), vehicle.getId());
-        then(extraFeeService).should().getWeatherExtraFees(codeItems, vehicle.getId());
+        then(extraFeeService).should().getTotalExtraFeeCents(codeItems, vehicle.getId());
+    }
+
+    private static CityStation toCityStation(City city) {
+        return new CityStation(city.getId(), city.getWeatherStation().getWMOcode());
+    }
+
+    private static RegionalBaseFeeRow toRow(RegionalBaseFee baseFee) {
+        return new RegionalBaseFeeRow(baseFee.getCity().getId(), baseFee.getVehicle().getId(), baseFee.getFeeAmount());
+    }
+
+    private long getTotalCents(List<ExtraFee> extraFees) {
+        return extraFees.stream()
+                .mapToLong(extraFee -> MoneyUtil.toCents(extraFee.getFeeAmount()))
+                .sum();
     }
 
     private DeliveryFeeDto getExpectedDeliveryFeeDto(Vehicle vehicle, RegionalBaseFee baseFee, List<ExtraFee> extraFees) {
@@ -0,0 +1,81 @@
+package com.fujitsu.trialtask.deliveryfee.service;
+
+import com.fujitsu.trialtask.deliveryfee.dto.DeliveryFeeResultDto;
+import com.fujitsu.trialtask.deliveryfee.event.FeesChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+public class FeeStreamServiceTest {
+    private final List<Runnable> pendingSends = new ArrayList<>();
+    private final FeeStreamService service = new FeeStreamService(pendingSends::add);
+
+    @Test
+    void subscribe_NewClient_EmitterRegistered() {
+        // when
+        SseEmitter emitter = service.subscribe();
+
+        // then
+        assertTrue(getEmitters().contains(emitter));
+    }
+
+    @Test
+    void onFeesChanged_Subscribers_SentOnExecutorInsteadOfPublishingThread() throws IOException {
+        // given
+        SseEmitter emitter = mock(SseEmitter.class);
+        getEmitters().add(emitter);
+
+        // when
+        service.onFeesChanged(getEvent());
+
+        // then
+        then(emitter).should(never()).send(any(SseEmitter.SseEventBuilder.class));
+        assertEquals(1, pendingSends.size());
+        pendingSends.get(0).run();
+        then(emitter).should().send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void onFeesChanged_SendFailed_SubscriberDroppedOthersStillReceive() throws IOException {
+        // given
+        SseEmitter failing = mock(SseEmitter.class);
+        SseEmitter working = mock(SseEmitter.class);
+        IOException failure = new IOException("Broken pipe");
+        willThrow(failure).given(failing).send(any(SseEmitter.SseEventBuilder.class));
+        getEmitters().add(failing);
+        getEmitters().add(working);
+
+        // when
+        service.onFeesChanged(getEvent());
+        service.onFeesChanged(getEvent());
+        pendingSends.forEach(Runnable::run);
+
+        // then
+        then(failing).should().send(any(SseEmitter.SseEventBuilder.class));
+        then(failing).should().completeWithError(failure);
+        then(working).should(times(2)).send(any(SseEmitter.SseEventBuilder.class));
+        assertEquals(List.of(working), getEmitters());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<SseEmitter> getEmitters() {
+        return (List<SseEmitter>) ReflectionTestUtils.getField(service, "emitters");
+    }
+
+    private static FeesChangedEvent getEvent() {
+        return new FeesChangedEvent(List.of(DeliveryFeeResultDto.builder().cityId(1L).vehicleId(2L).build()));
+    }
+}
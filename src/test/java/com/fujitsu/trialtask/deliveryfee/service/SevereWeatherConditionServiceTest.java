@@ -0,0 +1,71 @@
+package com.fujitsu.trialtask.deliveryfee.service;
+
+import com.fujitsu.trialtask.deliveryfee.dto.WeatherMeasurementDto;
+import com.fujitsu.trialtask.deliveryfee.entity.CodeItem;
+import com.fujitsu.trialtask.deliveryfee.entity.SevereWeatherCondition;
+import com.fujitsu.trialtask.deliveryfee.repository.SevereWeatherConditionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+public class SevereWeatherConditionServiceTest {
+    private static final CodeItem AT_MINUS_TEN_TO_ZERO = new CodeItem("AT_MINUS_TEN_TO_ZERO", "AT");
+    private static final CodeItem WP_SNOW_SLEET = new CodeItem("WP_SNOW_SLEET", "WP");
+
+    @Mock
+    private SevereWeatherConditionRepository repository;
+    @InjectMocks
+    private SevereWeatherConditionService service;
+
+    @Test
+    void getCodeItemsFromWeatherMeasurementDto_ClassifiedAtIngest_StoredCodesWithoutRules() {
+        // given
+        List<CodeItem> storedCodes = List.of(WP_SNOW_SLEET);
+        WeatherMeasurementDto measurement = WeatherMeasurementDto.builder()
+                .airTemperature(-5F)
+                .phenomenon("Light snow shower")
+                .classified(true)
+                .codeItems(storedCodes)
+                .build();
+
+        // when
+        List<CodeItem> result = service.getCodeItemsFromWeatherMeasurementDto(measurement);
+
+        // then
+        assertSame(storedCodes, result);
+        then(repository).should(never()).findAllWithPhenomena();
+    }
+
+    @Test
+    void getCodeItemsFromWeatherMeasurementDto_NotClassified_ClassifiedWithCurrentRules() {
+        // given
+        given(repository.findAllWithPhenomena()).willReturn(List.of(
+                new SevereWeatherCondition(1L, AT_MINUS_TEN_TO_ZERO, -10F, 0F, List.of()),
+                new SevereWeatherCondition(2L, WP_SNOW_SLEET, null, null, List.of("snow", "sleet"))
+        ));
+        WeatherMeasurementDto measurement = WeatherMeasurementDto.builder()
+                .airTemperature(-5F)
+                .phenomenon("Light snow shower")
+                .classified(false)
+                .build();
+
+        // when
+        List<CodeItem> result = service.getCodeItemsFromWeatherMeasurementDto(measurement);
+        service.getCodeItemsFromWeatherMeasurementDto(measurement);
+
+        // then
+        assertEquals(List.of(WP_SNOW_SLEET, AT_MINUS_TEN_TO_ZERO), result);
+        then(repository).should().findAllWithPhenomena();
+    }
+}
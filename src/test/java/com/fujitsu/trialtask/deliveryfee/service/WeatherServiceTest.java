@@ -3,10 +3,17 @@ package com.fujitsu.trialtask.deliveryfee.service;
 import com.fujitsu.trialtask.deliveryfee.dto.WeatherMeasurementDto;
 import com.fujitsu.trialtask.deliveryfee.entity.WeatherMeasurement;
 import com.fujitsu.trialtask.deliveryfee.entity.WeatherStation;
+import com.fujitsu.trialtask.deliveryfee.entity.WeatherStationLatest;
 import com.fujitsu.trialtask.deliveryfee.mapper.WeatherMeasurementMapper;
 import com.fujitsu.trialtask.deliveryfee.mapper.WeatherMeasurementMapperImpl;
+import com.fujitsu.trialtask.deliveryfee.metrics.WeatherMetrics;
+import com.fujitsu.trialtask.deliveryfee.projection.MeasurementReading;
+import com.fujitsu.trialtask.deliveryfee.repository.WeatherMeasurementDailyRepository;
+import com.fujitsu.trialtask.deliveryfee.repository.WeatherMeasurementHourlyRepository;
 import com.fujitsu.trialtask.deliveryfee.repository.WeatherMeasurementRepository;
+import com.fujitsu.trialtask.deliveryfee.repository.WeatherStationLatestRepository;
 import com.fujitsu.trialtask.deliveryfee.util.exception.WeatherDataException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -17,6 +24,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.sql.Timestamp;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
@@ -26,8 +34,16 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 public class WeatherServiceTest {
     @Spy
     private WeatherMeasurementMapper mapper = new WeatherMeasurementMapperImpl();
+    @Spy
+    private WeatherMetrics metrics = new WeatherMetrics(new SimpleMeterRegistry());
+    @Mock
+    private WeatherStationLatestRepository repository;
+    @Mock
+    private WeatherMeasurementRepository weatherRepository;
     @Mock
-    private WeatherMeasurementRepository repository;
+    private WeatherMeasurementHourlyRepository hourlyRepository;
+    @Mock
+    private WeatherMeasurementDailyRepository dailyRepository;
     @InjectMocks
     private WeatherService service;
 
@@ -46,15 +62,22 @@ public class WeatherServiceTest {
                 .windSpeed(10F)
                 .phenomenon("Snow")
                 .build();
-        given(repository.findTopByWeatherStationWMOcodeOrderByTimestampDesc(station.getWMOcode())).willReturn(Optional.of(measurement));
+        given(repository.findWithMeasurementById(station.getWMOcode()))
+                .willReturn(Optional.of(new WeatherStationLatest(station.getWMOcode(), measurement)));
 
         // when
-        WeatherMeasurementDto result = service.getLatestMeasurementFromStation(station);
+        WeatherMeasurementDto result = service.getLatestMeasurementFromStation(station.getWMOcode());
+        WeatherMeasurementDto cachedResult = service.getLatestMeasurementFromStation(station.getWMOcode());
 
         // then
-        then(repository).should().findTopByWeatherStationWMOcodeOrderByTimestampDesc(station.getWMOcode());
+        // The second call is served from memory.
+        then(repository).should().findWithMeasurementById(station.getWMOcode());
+        then(repository).shouldHaveNoMoreInteractions();
         then(mapper).should().toDto(measurement);
         assertWeatherMeasurementDto(measurement, result);
+        // Every call gets a copy of its own.
+        assertNotSame(result, cachedResult);
+        assertWeatherMeasurementDto(measurement, cachedResult);
     }
 
     @Test
@@ -63,14 +86,35 @@ public class WeatherServiceTest {
                 .WMOcode(12345)
                 .name("Test station")
                 .build();
-        given(repository.findTopByWeatherStationWMOcodeOrderByTimestampDesc(station.getWMOcode())).willReturn(Optional.empty());
+        given(repository.findWithMeasurementById(station.getWMOcode())).willReturn(Optional.empty());
 
-        WeatherDataException thrown = assertThrows(WeatherDataException.class, () -> service.getLatestMeasurementFromStation(station));
+        WeatherDataException thrown = assertThrows(WeatherDataException.class, () -> service.getLatestMeasurementFromStation(station.getWMOcode()));
 
         assertEquals("Weather data is not available", thrown.getMessage());
         assertEquals(station.getWMOcode(), thrown.getWMOcode());
     }
 
+    @Test
+    void getReadingFromStationAt_MeasurementsRolledUp_LastCompleteHour() throws WeatherDataException {
+        // given
+        Integer WMOcode = 26038;
+        Timestamp at = Timestamp.valueOf("2024-03-10 11:30:00");
+        MeasurementReading previousHour = new MeasurementReading(Timestamp.valueOf("2024-03-10 10:00:00"),
+                -2.1F, 4.7F, "Light snow shower");
+        given(weatherRepository.findReadingAt(WMOcode, at)).willReturn(Optional.empty());
+        given(hourlyRepository.findReadingAt(WMOcode, Timestamp.valueOf("2024-03-10 10:30:00")))
+                .willReturn(Optional.of(previousHour));
+        given(dailyRepository.findReadingAt(WMOcode, Timestamp.valueOf("2024-03-09 11:30:00")))
+                .willReturn(Optional.empty());
+
+        // when
+        MeasurementReading result = service.getReadingFromStationAt(WMOcode, at);
+
+        // then
+        // The hour starting at 11:00 also averages readings taken after 11:30, so it is not used.
+        assertEquals(previousHour, result);
+    }
+
     private void assertWeatherMeasurementDto(WeatherMeasurement expected, WeatherMeasurementDto actual) {
         assertEquals(expected.getId(), actual.getId());
         assertEquals(expected.getTimestamp(), actual.getTimestamp());
@@ -0,0 +1,116 @@
+package com.fujitsu.trialtask.deliveryfee.util;
+
+import com.fujitsu.trialtask.deliveryfee.model.WeatherStationModel;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WeatherObservationParserTest {
+    private static final String OBSERVATIONS = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <observations timestamp="1710000000">
+              <station>
+                <name>Kuressaare linn</name>
+                <wmocode></wmocode>
+                <phenomenon>Light rain</phenomenon>
+                <airtemperature>1.5</airtemperature>
+                <windspeed>3.1</windspeed>
+              </station>
+              <station>
+                <name>Tallinn-Harku</name>
+                <wmocode>26038</wmocode>
+                <longitude>24.602891666624284</longitude>
+                <phenomenon>Light snow shower</phenomenon>
+                <airtemperature>-2.1</airtemperature>
+                <windspeed>4.7</windspeed>
+              </station>
+              <station>
+                <name>Ruhnu</name>
+                <wmocode>41104</wmocode>
+                <phenomenon>Clear</phenomenon>
+                <airtemperature>0.3</airtemperature>
+                <windspeed>8.0</windspeed>
+              </station>
+              <station>
+                <name>Pärnu</name>
+                <wmocode>41803</wmocode>
+                <phenomenon></phenomenon>
+                <airtemperature>0.8</airtemperature>
+                <windspeed></windspeed>
+              </station>
+            </observations>
+            """;
+
+    @Test
+    void parse_MixedStations_OnlyRegisteredStationsEmitted() throws XMLStreamException {
+        // given
+        List<WeatherStationModel> stations = new ArrayList<>();
+        List<Long> timestamps = new ArrayList<>();
+
+        // when
+        int count = WeatherObservationParser.parse(toStream(OBSERVATIONS), Set.of(26038, 41803)::contains,
+                (timeInSeconds, station) -> {
+                    timestamps.add(timeInSeconds);
+                    stations.add(station);
+                });
+
+        // then
+        assertEquals(2, count);
+        assertEquals(List.of(1710000000L, 1710000000L), timestamps);
+        assertEquals("Tallinn-Harku", stations.get(0).getStationName());
+        assertEquals(26038, stations.get(0).getWMOcode());
+        assertEquals("Light snow shower", stations.get(0).getPhenomenon());
+        assertEquals(-2.1F, stations.get(0).getAirTemperature());
+        assertEquals(4.7F, stations.get(0).getWindSpeed());
+        assertEquals(41803, stations.get(1).getWMOcode());
+        assertNull(stations.get(1).getPhenomenon());
+        assertNull(stations.get(1).getWindSpeed());
+    }
+
+    @Test
+    void parse_NoObservationTimestamp_XMLStreamException() {
+        String observations = "<observations><station><wmocode>26038</wmocode></station></observations>";
+
+        assertThrows(XMLStreamException.class,
+                () -> WeatherObservationParser.parse(toStream(observations), code -> true, (time, station) -> {
+                }));
+    }
+
+    @Test
+    void parse_MalformedAirTemperature_XMLStreamExceptionWithStationAndElement() {
+        String observations = "<observations timestamp=\"1710000000\"><station><name>Tallinn-Harku</name>"
+                + "<wmocode>26038</wmocode><airtemperature>abc</airtemperature></station></observations>";
+
+        XMLStreamException exception = assertThrows(XMLStreamException.class,
+                () -> WeatherObservationParser.parse(toStream(observations), code -> true, (time, station) -> {
+                }));
+
+        assertTrue(exception.getMessage().contains("airtemperature"));
+        assertTrue(exception.getMessage().contains("26038"));
+    }
+
+    @Test
+    void parse_MalformedTimestamp_XMLStreamException() {
+        String observations = "<observations timestamp=\"yesterday\"><station><wmocode>26038</wmocode></station>"
+                + "</observations>";
+
+        assertThrows(XMLStreamException.class,
+                () -> WeatherObservationParser.parse(toStream(observations), code -> true, (time, station) -> {
+                }));
+    }
+
+    private static InputStream toStream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+}